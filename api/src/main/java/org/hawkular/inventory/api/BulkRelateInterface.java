@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * A {@link RelateInterface} that can also add and remove several entities at once. Only the relations that can
+ * actually be modified offer it.
+ *
+ * @author agent
+ * @since 1.0
+ */
+interface BulkRelateInterface extends RelateInterface {
+
+    /**
+     * Adds several pre-existing entities into the relation with the current entity. All the entities are looked up
+     * using a single query and the changes are committed at once.
+     *
+     * @see #add(String) for explanation of how the current entity and the relation is determined.
+     *
+     * @param ids the ids of the pre-existing entities to be related to the entity on the current position in the
+     *            inventory traversal
+     * @return the ids of the entities that could not be found and therefore were not related to the current entity
+     */
+    Set<String> add(Collection<String> ids);
+
+    /**
+     * Removes several entities from the relation with the current entity. The changes are committed at once.
+     *
+     * @see #add(String) for explanation of how the current entity and the relation is determined.
+     *
+     * @param ids the ids of the entities to remove from the relation with the current entity
+     * @return the ids of the entities that were not in the relation with the current entity
+     */
+    Set<String> remove(Collection<String> ids);
+}
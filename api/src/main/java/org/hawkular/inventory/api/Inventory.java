@@ -88,6 +88,32 @@ public interface Inventory extends AutoCloseable {
      */
     Tenants.ReadWrite tenants();
 
+    /**
+     * Entry point for managing the indices on the custom properties of entities.
+     *
+     * @return the interface to declare and list the property indices
+     */
+    PropertyIndexes propertyIndexes();
+
+    /**
+     * Marks the start of a unit of work in the current thread, e.g. the processing of a single request. Each unit of
+     * work must be ended by calling {@link #endUnitOfWork()} in the same thread.
+     *
+     * <p>The implementations can use this to scope their transactions. The default implementation does nothing.
+     *
+     * @param readOnly true if the unit of work is only going to read the inventory
+     */
+    default void beginUnitOfWork(boolean readOnly) {
+    }
+
+    /**
+     * Marks the end of the unit of work started by {@link #beginUnitOfWork(boolean)} in the current thread.
+     *
+     * <p>The default implementation does nothing.
+     */
+    default void endUnitOfWork() {
+    }
+
     /**
      * Query for the provided tenant and return an access interface for inspecting it.
      *
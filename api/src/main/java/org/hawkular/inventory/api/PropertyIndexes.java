@@ -0,0 +1,49 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api;
+
+import org.hawkular.inventory.api.model.PropertyIndex;
+
+import java.util.Set;
+
+/**
+ * Provides access to the indices on the custom properties of the entities.
+ *
+ * <p>The property filters (see {@link org.hawkular.inventory.api.filters.With#property(String, Object)}) on the
+ * indexed properties of entities are evaluated using the indices.
+ *
+ * @author agent
+ * @since 1.0
+ */
+public interface PropertyIndexes {
+
+    /**
+     * Declares a new index. The entities that already have the property are indexed, too.
+     *
+     * <p>Declaring an index that already exists does nothing.
+     *
+     * @param index the index to declare
+     * @throws IllegalArgumentException if the property is reserved or if the index already exists with a different
+     * value type
+     */
+    void create(PropertyIndex index);
+
+    /**
+     * @return all the declared indices
+     */
+    Set<PropertyIndex> getAll();
+}
@@ -37,6 +37,18 @@ interface ReadInterface<Single, Multiple> {
      */
     Single get(String id) throws EntityNotFoundException, RelationNotFoundException;
 
+    /**
+     * Finds the entities with the provided ids in the current position in the inventory traversal. This is equivalent
+     * to {@code getAll(With.ids(ids))} but the backend can look up all the ids at once instead of checking each
+     * entity in the current position.
+     *
+     * <p>The ids that don't exist in the current position are silently ignored.
+     *
+     * @param ids the ids of the entities to find
+     * @return the (read-only) access interface to the found entities
+     */
+    Multiple get(String... ids);
+
     /**
      * Returns access interface to all entities conforming to provided filters in the current position in the inventory
      * traversal.
@@ -45,4 +57,16 @@ interface ReadInterface<Single, Multiple> {
      * @return the (read-only) access interface to the found entities
      */
     Multiple getAll(Filter... filters);
+
+    /**
+     * Searches for the entities in the current position in the inventory traversal whose id starts with the provided
+     * text or whose searchable property contains it.
+     *
+     * <p>Unlike the filters, the search is meant to be served from a full-text index, if the backend supports one,
+     * instead of going through all the entities.
+     *
+     * @param text the text to search for
+     * @return the (read-only) access interface to the found entities
+     */
+    Multiple search(String text);
 }
@@ -24,5 +24,5 @@ package org.hawkular.inventory.api;
  * @since 1.0
  */
 interface ReadWriteRelationshipsInterface<Single, Multiple> extends
-        ReadRelationshipsInterface<Single, Multiple>, WriteRelationshipInterface<Single> {
+        ReadRelationshipsInterface<Single, Multiple>, WriteRelationshipInterface<Single, Multiple> {
 }
@@ -17,6 +17,7 @@
 
 package org.hawkular.inventory.api;
 
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -33,4 +34,16 @@ public interface ResolvableToMany<Entity> {
      * @return resolves all entities on the current position in the inventory traversal and returns them as a set.
      */
     Set<Entity> entities();
+
+    /**
+     * Unlike {@link #entities()}, this doesn't need to hold all the entities in memory at once. The implementations
+     * are encouraged to resolve the entities lazily, one by one, as they are requested from the iterator.
+     *
+     * <p>The default implementation merely iterates over the result of {@link #entities()}.
+     *
+     * @return an iterator over the entities on the current position in the inventory traversal
+     */
+    default Iterator<Entity> entityIterator() {
+        return entities().iterator();
+    }
 }
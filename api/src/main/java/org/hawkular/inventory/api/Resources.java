@@ -17,6 +17,7 @@
 package org.hawkular.inventory.api;
 
 import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.Subgraph;
 
 /**
  * This is a wrapper class to hold various interfaces defining available functionality on resources.
@@ -39,7 +40,19 @@ public final class Resources {
     /**
      * Interface for accessing a single resource in a writable manner.
      */
-    public interface Single extends SingleRelatableEntityBrowser<Resource>, BrowserBase<Metrics.ReadRelate> {}
+    public interface Single extends SingleRelatableEntityBrowser<Resource>, BrowserBase<Metrics.ReadRelate> {
+
+        /**
+         * Retrieves the resource together with its neighborhood in a single traversal. The relationships are
+         * followed regardless of their direction.
+         *
+         * @param depth the maximum number of relationships to follow from the resource
+         * @param relationshipNames the names of the relationships to follow, all relationships are followed if
+         *                          none is specified
+         * @return the subgraph centered at the resource
+         */
+        Subgraph<Resource> subgraph(int depth, String... relationshipNames);
+    }
 
     /**
      * Interface for traversing over a set of resources.
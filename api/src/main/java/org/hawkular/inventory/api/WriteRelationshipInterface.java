@@ -19,15 +19,18 @@ package org.hawkular.inventory.api;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.Relationship;
 
+import java.util.Collection;
+
 /**
  * Generic methods to write access to relationships.
  *
  * @param <Single> the access interface to a single relationship
+ * @param <Multiple> the access interface to multiple relationships
  *
  * @author Jirka Kremser
  * @since 1.0
  */
-interface WriteRelationshipInterface<Single> {
+interface WriteRelationshipInterface<Single, Multiple> {
 
     /**
      * Creates a new relationship at the current position in the inventory traversal.
@@ -69,6 +72,42 @@ interface WriteRelationshipInterface<Single> {
      */
     Single linkWith(Relationships.WellKnown name, Entity targetOrSource) throws IllegalArgumentException;
 
+    /**
+     * Creates new relationships with each of the provided entities at the current position in the inventory traversal.
+     *
+     * <p>All the entities are looked up at once and the relationships are created in a single transaction. If any of
+     * the entities cannot be found or any of the relationships cannot be created, none of them is created.
+     *
+     * @param name the name of the relationships (label)
+     * @param targetsOrSources the source/target entities (based on the chosen relationship direction) that the current
+     *                         entity (based on the position in the inventory traversal) will be in the relationship
+     *                         with
+     * @return access interface to the freshly created relationships
+     *
+     * @throws java.lang.IllegalArgumentException if any of the parameters is null or if any of the relationships
+     * would break the restrictions imposed on the well-known relationships
+     * @throws org.hawkular.inventory.api.EntityNotFoundException if any of the entities doesn't exist
+     *
+     * @see #linkWith(String, org.hawkular.inventory.api.model.Entity)
+     */
+    Multiple linkWith(String name, Collection<? extends Entity> targetsOrSources) throws IllegalArgumentException;
+
+    /**
+     * Same as {@link #linkWith(String, java.util.Collection)} but using one of the well-known relationship names.
+     *
+     * @param name the well known name (Relationships.WellKnown) of the relationships
+     * @param targetsOrSources the source/target entities (based on the chosen relationship direction) that the current
+     *                         entity (based on the position in the inventory traversal) will be in the relationship
+     *                         with
+     * @return access interface to the freshly created relationships
+     *
+     * @throws java.lang.IllegalArgumentException if any of the parameters is null
+     *
+     * @see #linkWith(org.hawkular.inventory.api.Relationships.WellKnown, org.hawkular.inventory.api.model.Entity)
+     */
+    Multiple linkWith(Relationships.WellKnown name, Collection<? extends Entity> targetsOrSources)
+            throws IllegalArgumentException;
+
     /**
      * Persists the provided relationship on the current position in the inventory traversal.
      *
@@ -88,4 +127,13 @@ interface WriteRelationshipInterface<Single> {
      * @throws org.hawkular.inventory.api.RelationNotFoundException
      */
     void delete(String id) throws RelationNotFoundException;
+
+    /**
+     * Deletes all the relationships with the provided ids from the current position in the inventory traversal in a
+     * single transaction. If any of the relationships cannot be found, none of them is deleted.
+     *
+     * @param ids the ids of the relationships to delete
+     * @throws org.hawkular.inventory.api.RelationNotFoundException if any of the relationships doesn't exist
+     */
+    void delete(Collection<String> ids) throws RelationNotFoundException;
 }
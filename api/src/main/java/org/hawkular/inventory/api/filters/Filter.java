@@ -34,8 +34,8 @@ import java.util.List;
  * A base class for filters. Defines no filtering logic in and of itself.
  *
  * <p>The implementations of the Hawkular inventory API are supposed to support filtering by {@link Related},
- * {@link With.Ids} and {@link With.Types}. There is also a sub-class of filters for the relation filtering {@link
- * RelationFilter}.
+ * {@link With.Ids}, {@link With.Types} and {@link With.PropertyValues}. There is also a sub-class of filters for the
+ * relation filtering {@link RelationFilter}.
  *
  * To create these filters, feel free to use the static helper methods defined on {@link With}.
  * <p>
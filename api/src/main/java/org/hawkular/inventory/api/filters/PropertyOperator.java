@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.filters;
+
+/**
+ * The operators that can be used to compare the values of properties of entities or relationships in the
+ * {@link With.PropertyValues} and {@link RelationWith.PropertyValues} filters.
+ *
+ * <p>The values compared to the property values must be of the same type as the property values (i.e. comparing
+ * a numeric property to a string value is not supported).
+ *
+ * @author agent
+ * @since 1.0
+ */
+public enum PropertyOperator {
+    /**
+     * The property is equal to the single provided value.
+     */
+    EQUAL(1, 1),
+
+    /**
+     * The property is not equal to the single provided value.
+     */
+    NOT_EQUAL(1, 1),
+
+    /**
+     * The property is greater than the single provided value.
+     */
+    GREATER_THAN(1, 1),
+
+    /**
+     * The property is greater than or equal to the single provided value.
+     */
+    GREATER_THAN_EQUAL(1, 1),
+
+    /**
+     * The property is less than the single provided value.
+     */
+    LESS_THAN(1, 1),
+
+    /**
+     * The property is less than or equal to the single provided value.
+     */
+    LESS_THAN_EQUAL(1, 1),
+
+    /**
+     * The property is greater than or equal to the first and less than the second of the provided values.
+     */
+    RANGE(2, 2),
+
+    /**
+     * The property is equal to one of the provided values.
+     */
+    IN(1, Integer.MAX_VALUE),
+
+    /**
+     * The property is a string starting with the single provided value.
+     */
+    PREFIX(1, 1),
+
+    /**
+     * The property is defined, no values are expected.
+     */
+    EXISTS(0, 0);
+
+    private final int minValues;
+    private final int maxValues;
+
+    PropertyOperator(int minValues, int maxValues) {
+        this.minValues = minValues;
+        this.maxValues = maxValues;
+    }
+
+    /**
+     * Checks that the number of provided values corresponds to what this operator expects.
+     *
+     * @param values the values to check
+     * @throws IllegalArgumentException if the number of values doesn't correspond to this operator
+     */
+    public void checkValues(Object[] values) {
+        int count = values == null ? 0 : values.length;
+        if (count < minValues || count > maxValues) {
+            throw new IllegalArgumentException("Operator " + name() + " expects " + (minValues == maxValues ?
+                    minValues : "at least " + minValues) + " value(s) but " + count + " were provided.");
+        }
+
+        if (values != null && this == PREFIX && !(values[0] instanceof String)) {
+            throw new IllegalArgumentException("Operator PREFIX expects a string value.");
+        }
+    }
+}
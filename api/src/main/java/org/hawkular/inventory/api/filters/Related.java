@@ -33,6 +33,9 @@ public class Related<T extends Entity> extends Filter {
     private final String relationshipName;
     private final String relationshipId;
     private final EntityRole entityRole;
+    private final boolean transitive;
+    private final int maxDepth;
+    private final boolean dedup;
 
     /**
      * Specifies a filter for entities that are sources of a relationship with the specified entity.
@@ -140,16 +143,58 @@ public class Related<T extends Entity> extends Filter {
     }
 
     protected Related(T entity, String relationshipName, String relationshipId, EntityRole entityRole) {
+        this(entity, relationshipName, relationshipId, entityRole, false, 1, false);
+    }
+
+    protected Related(T entity, String relationshipName, String relationshipId, EntityRole entityRole,
+                      boolean transitive, int maxDepth, boolean dedup) {
         this.entity = entity;
         this.relationshipName = relationshipName;
         this.relationshipId = relationshipId;
         this.entityRole = entityRole;
+        this.transitive = transitive;
+        this.maxDepth = maxDepth;
+        this.dedup = dedup;
     }
 
     protected Related(T entity, String relationshipName, EntityRole entityRole) {
         this(entity, relationshipName, null, entityRole);
     }
 
+    /**
+     * Creates a transitive variant of this filter. Instead of following just a single relationship, the transitive
+     * filter follows chains of relationships with the name of this filter that are at most {@code maxDepth} long.
+     *
+     * <p>E.g. {@code Related.with(resource, contains).transitive(2, true)} matches the entities that contain the
+     * resource directly or through one other entity.
+     *
+     * @param maxDepth the maximum number of relationships to follow, zero or less for unlimited
+     * @param dedup whether each entity should be visited at most once during the traversal. This is required for the
+     *              unlimited traversals, because the relationships can form cycles.
+     * @return a new transitive "related" filter instance
+     */
+    public Related<T> transitive(int maxDepth, boolean dedup) {
+        if (relationshipName == null) {
+            throw new IllegalArgumentException("Only relationships specified by name can be followed transitively.");
+        }
+
+        if (maxDepth <= 0 && !dedup) {
+            throw new IllegalArgumentException("Traversal with unlimited depth needs to deduplicate the entities.");
+        }
+
+        return new Related<>(entity, relationshipName, relationshipId, entityRole, true, maxDepth, dedup);
+    }
+
+    /**
+     * An overloaded version of {@link #transitive(int, boolean)} that visits each entity at most once.
+     *
+     * @param maxDepth the maximum number of relationships to follow, zero or less for unlimited
+     * @return a new transitive "related" filter instance
+     */
+    public Related<T> transitive(int maxDepth) {
+        return transitive(maxDepth, true);
+    }
+
     /**
      * @return the entity used for creating this filter.
      */
@@ -178,6 +223,27 @@ public class Related<T extends Entity> extends Filter {
         return entityRole;
     }
 
+    /**
+     * @return true if the relationships should be followed transitively, false otherwise
+     */
+    public boolean isTransitive() {
+        return transitive;
+    }
+
+    /**
+     * @return the maximum number of relationships to follow if the filter is transitive, zero or less for unlimited
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * @return true if each entity should be visited at most once during the transitive traversal
+     */
+    public boolean isDedup() {
+        return dedup;
+    }
+
     public static enum EntityRole {
         TARGET, SOURCE, ANY
     }
@@ -185,6 +251,7 @@ public class Related<T extends Entity> extends Filter {
     @Override
     public String toString() {
         return getClass().getSimpleName() + "[" + (entity != null ? "entity=" + String.valueOf(entity) : "")
-                + ", rel='" + relationshipName + "', role=" + entityRole.name() + "]";
+                + ", rel='" + relationshipName + "', role=" + entityRole.name()
+                + (transitive ? ", maxDepth=" + maxDepth + ", dedup=" + dedup : "") + "]";
     }
 }
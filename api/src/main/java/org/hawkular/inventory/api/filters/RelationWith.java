@@ -51,6 +51,18 @@ public final class RelationWith {
     }
 
 
+    public static PropertyValues property(String property, PropertyOperator operator, Object... values) {
+        return new PropertyValues(property, operator, values);
+    }
+
+    public static PropertyValues propertyExists(String property) {
+        return new PropertyValues(property, PropertyOperator.EXISTS);
+    }
+
+    public static PropertyValues propertyInRange(String property, Object from, Object to) {
+        return new PropertyValues(property, PropertyOperator.RANGE, from, to);
+    }
+
     public static Properties name(String value) {
         return new Properties("label", value);
     }
@@ -124,6 +136,49 @@ public final class RelationWith {
         }
     }
 
+    /**
+     * Filters relationships by the values of their properties using other operators than just equality.
+     *
+     * @see PropertyOperator
+     */
+    public static final class PropertyValues extends RelationFilter {
+        private final String property;
+        private final PropertyOperator operator;
+        private final Object[] values;
+
+        public PropertyValues(String property, PropertyOperator operator, Object... values) {
+            if (property == null) {
+                throw new IllegalArgumentException("property == null");
+            }
+            if (operator == null) {
+                throw new IllegalArgumentException("operator == null");
+            }
+            operator.checkValues(values);
+
+            this.property = property;
+            this.operator = operator;
+            this.values = values == null ? new Object[0] : values;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public PropertyOperator getOperator() {
+            return operator;
+        }
+
+        public Object[] getValues() {
+            return values;
+        }
+
+        @Override
+        public String toString() {
+            return "RelationshipPropertyValues[" + property + " " + operator.name() + " " + Arrays.asList(values)
+                    + "]";
+        }
+    }
+
     public static class SourceOrTargetOfType extends RelationFilter {
         private final Class<? extends Entity>[] types;
 
@@ -46,6 +46,22 @@ public final class With {
         return new Types(type);
     }
 
+    public static PropertyValues property(String property, Object value) {
+        return new PropertyValues(property, PropertyOperator.EQUAL, value);
+    }
+
+    public static PropertyValues property(String property, PropertyOperator operator, Object... values) {
+        return new PropertyValues(property, operator, values);
+    }
+
+    public static PropertyValues propertyExists(String property) {
+        return new PropertyValues(property, PropertyOperator.EXISTS);
+    }
+
+    public static PropertyValues propertyInRange(String property, Object from, Object to) {
+        return new PropertyValues(property, PropertyOperator.RANGE, from, to);
+    }
+
     public static final class Ids extends Filter {
 
         private final String[] ids;
@@ -91,4 +107,45 @@ public final class With {
         }
     }
 
+    /**
+     * Filters entities by the values of their properties.
+     *
+     * @see PropertyOperator
+     */
+    public static final class PropertyValues extends Filter {
+        private final String property;
+        private final PropertyOperator operator;
+        private final Object[] values;
+
+        public PropertyValues(String property, PropertyOperator operator, Object... values) {
+            if (property == null) {
+                throw new IllegalArgumentException("property == null");
+            }
+            if (operator == null) {
+                throw new IllegalArgumentException("operator == null");
+            }
+            operator.checkValues(values);
+
+            this.property = property;
+            this.operator = operator;
+            this.values = values == null ? new Object[0] : values;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public PropertyOperator getOperator() {
+            return operator;
+        }
+
+        public Object[] getValues() {
+            return values;
+        }
+
+        @Override
+        public String toString() {
+            return "PropertyValues[" + property + " " + operator.name() + " " + Arrays.asList(values) + "]";
+        }
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.model;
+
+/**
+ * A declaration of an index on a custom property of entities of some type. The inventory uses such indices to look up
+ * the entities by the values of the property instead of going through all the entities of the type.
+ *
+ * @author agent
+ * @since 1.0
+ */
+public final class PropertyIndex {
+    private final Class<? extends Entity> entityType;
+    private final String property;
+    private final Class<?> valueType;
+
+    /**
+     * Declares an index on a property with values of any type.
+     *
+     * @param entityType the type of the entities to index
+     * @param property the name of the property to index
+     */
+    public PropertyIndex(Class<? extends Entity> entityType, String property) {
+        this(entityType, property, Object.class);
+    }
+
+    /**
+     * @param entityType the type of the entities to index
+     * @param property the name of the property to index
+     * @param valueType the type of the values of the property. Some backends can index the values more efficiently
+     *                  if they know their type.
+     */
+    public PropertyIndex(Class<? extends Entity> entityType, String property, Class<?> valueType) {
+        if (entityType == null) {
+            throw new IllegalArgumentException("entityType == null");
+        }
+        if (property == null) {
+            throw new IllegalArgumentException("property == null");
+        }
+        if (valueType == null) {
+            throw new IllegalArgumentException("valueType == null");
+        }
+
+        this.entityType = entityType;
+        this.property = property;
+        this.valueType = valueType;
+    }
+
+    public Class<? extends Entity> getEntityType() {
+        return entityType;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Class<?> getValueType() {
+        return valueType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PropertyIndex that = (PropertyIndex) o;
+
+        return entityType.equals(that.entityType) && property.equals(that.property);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * entityType.hashCode() + property.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "PropertyIndex[entityType=" + entityType.getSimpleName() + ", property='" + property + "', valueType="
+                + valueType.getSimpleName() + "]";
+    }
+}
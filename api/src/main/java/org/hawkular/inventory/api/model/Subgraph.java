@@ -0,0 +1,79 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.api.model;
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A neighborhood of an entity in the inventory. It contains the entity itself, the entities that are reachable from it
+ * by following at most a given number of relationships and the relationships that were followed to reach them.
+ *
+ * <p>Each entity and relationship is contained in the subgraph at most once.
+ *
+ * @param <E> the type of the entity the subgraph is centered at
+ *
+ * @author agent
+ * @since 1.0
+ */
+@XmlRootElement
+public final class Subgraph<E extends Entity> {
+
+    private final E root;
+    private final Set<Entity> entities;
+    private final Set<Relationship> relationships;
+
+    /** JAXB support */
+    @SuppressWarnings("unused")
+    private Subgraph() {
+        this(null, Collections.emptySet(), Collections.emptySet());
+    }
+
+    public Subgraph(E root, Set<Entity> entities, Set<Relationship> relationships) {
+        this.root = root;
+        this.entities = entities;
+        this.relationships = relationships;
+    }
+
+    /**
+     * @return the entity the subgraph is centered at
+     */
+    public E getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the entities reachable from the root, not including the root itself
+     */
+    public Set<Entity> getEntities() {
+        return entities;
+    }
+
+    /**
+     * @return the relationships between the root and the entities in the subgraph
+     */
+    public Set<Relationship> getRelationships() {
+        return relationships;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[root=" + root + ", entities=" + entities + ", relationships="
+                + relationships + "]";
+    }
+}
@@ -17,14 +17,26 @@
 
 package org.hawkular.inventory.impl.tinkerpop;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.filters.Filter;
 import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.Relationship;
+import org.hawkular.inventory.api.model.Subgraph;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author Lukas Krejci
@@ -37,22 +49,220 @@ abstract class AbstractBrowser<E extends Entity> extends AbstractSourcedGraphSer
     }
 
     public E entity() {
+        EntityCache cache = context.getEntityCache();
+        MissingEntityCache missingCache = context.getMissingEntityCache();
+        String key = cache.isEnabled() || missingCache.isEnabled() ? EntityCache.keyOf(path) : null;
+        String cacheKey = cache.isEnabled() ? key : null;
+        String missingKey = missingCache.isEnabled() ? key : null;
+        long generation = 0;
+        long missingGeneration = 0;
+
+        if (missingKey != null) {
+            if (missingCache.isMissing(missingKey)) {
+                throw new EntityNotFoundException(entityClass, FilterApplicator.filters(pathContext.path));
+            }
+
+            missingGeneration = missingCache.getGeneration();
+        }
+
+        if (cacheKey != null) {
+            Entity cached = cache.get(cacheKey);
+            if (cached != null) {
+                return entityClass.cast(cached);
+            }
+
+            generation = cache.getGeneration();
+        }
+
         HawkularPipeline<?, Vertex> q = source();
 
         if (!q.hasNext()) {
+            if (missingKey != null) {
+                missingCache.putMissing(missingKey, path, missingGeneration);
+            }
+
             throw new EntityNotFoundException(entityClass, FilterApplicator.filters(pathContext.path));
         }
 
-        return entityClass.cast(convert(q.next()));
+        Vertex v = q.next();
+        E ret = entityClass.cast(convert(v, context.getTypeDefinitions()));
+
+        if (cacheKey != null) {
+            //the entity contains the data of its defining entity, so it depends on its vertex, too
+            List<Object> dependencies = new ArrayList<>();
+            dependencies.add(v.getId());
+            v.getVertices(Direction.IN, Relationships.WellKnown.defines.name())
+                    .forEach(d -> dependencies.add(d.getId()));
+
+            cache.put(cacheKey, ret, dependencies, generation);
+        }
+
+        return ret;
     }
 
     public Set<E> entities() {
+        QueryResultCache cache = context.getQueryResultCache();
+        String cacheKey = cache.isEnabled() ? QueryResultCache.keyOf(path) : null;
+        List<List<String>> dependencies = null;
+        List<Long> revisions = null;
+
+        if (cacheKey != null) {
+            dependencies = QueryResultCache.dependenciesOf(path);
+
+            List<Entity> cached = cache.get(cacheKey, dependencies);
+            if (cached != null) {
+                Set<E> ret = new HashSet<>();
+                cached.forEach(e -> ret.add(entityClass.cast(e)));
+                return ret;
+            }
+
+            revisions = cache.getRevisions(dependencies);
+        }
+
         Set<E> ret = new HashSet<>();
 
-        source().forEach(v -> ret.add(entityClass.cast(convert(v))));
+        source().forEach(v -> ret.add(entityClass.cast(convert(v, context.getTypeDefinitions()))));
+
+        if (cacheKey != null) {
+            cache.put(cacheKey, ret, dependencies, revisions);
+        }
 
         return ret;
     }
+
+    /**
+     * Converts the entities one by one as they are requested.
+     *
+     * <p>The returned entities are also collected so that they can be put into the query result cache once the
+     * iterator is exhausted. The collecting stops as soon as the results get heavier than the whole cache, so the
+     * large results are never held in memory at once.
+     *
+     * <p>The paths that go just down the "contains" tree (the vast majority of them) cannot reach an entity twice, so
+     * nothing needs to be remembered about the returned entities. Only for the other paths are the ids of the
+     * vertices already returned remembered, so that no entity is returned twice.
+     *
+     * @return a lazy iterator over the entities
+     */
+    public Iterator<E> entityIterator() {
+        QueryResultCache cache = context.getQueryResultCache();
+        String cacheKey = cache.isEnabled() ? QueryResultCache.keyOf(path) : null;
+        List<List<String>> dependencies = null;
+        List<Long> revisions = null;
+
+        if (cacheKey != null) {
+            dependencies = QueryResultCache.dependenciesOf(path);
+
+            List<Entity> cached = cache.get(cacheKey, dependencies);
+            if (cached != null) {
+                return cached.stream().map(entityClass::cast).iterator();
+            }
+
+            revisions = cache.getRevisions(dependencies);
+        }
+
+        TypeDefinitions types = context.getTypeDefinitions();
+
+        Stream<Vertex> vertices = StreamSupport.stream(source().spliterator(), false);
+        if (FilterApplicator.mayRepeat(path)) {
+            Set<Object> seen = new HashSet<>();
+            vertices = vertices.filter(v -> seen.add(v.getId()));
+        }
+
+        Iterator<E> entities = vertices.map(v -> entityClass.cast(convert(v, types))).iterator();
+
+        if (cacheKey == null) {
+            return entities;
+        }
+
+        List<List<String>> resultDependencies = dependencies;
+        List<Long> resultRevisions = revisions;
+
+        return new Iterator<E>() {
+            private List<Entity> results = new ArrayList<>();
+
+            @Override
+            public boolean hasNext() {
+                boolean ret = entities.hasNext();
+                if (!ret && results != null) {
+                    cache.put(cacheKey, results, resultDependencies, resultRevisions);
+                    results = null;
+                }
+
+                return ret;
+            }
+
+            @Override
+            public E next() {
+                E ret = entities.next();
+                if (results != null) {
+                    //a result weighs the number of its entities plus one
+                    if (results.size() + 1 < cache.getMaxWeight()) {
+                        results.add(ret);
+                    } else {
+                        results = null;
+                    }
+                }
+
+                return ret;
+            }
+        };
+    }
+
+    public Subgraph<E> subgraph(int depth, String... relationshipNames) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("depth cannot be negative");
+        }
+
+        HawkularPipeline<?, Vertex> q = source();
+
+        if (!q.hasNext()) {
+            throw new EntityNotFoundException(entityClass, FilterApplicator.filters(pathContext.path));
+        }
+
+        Vertex root = q.next();
+
+        //the conversion is not cheap, so let's do it just once per vertex
+        Map<Object, Entity> entities = new HashMap<>();
+        Map<Object, Relationship> relationships = new HashMap<>();
+
+        entities.put(root.getId(), convert(root, context.getTypeDefinitions()));
+
+        List<Vertex> frontier = Collections.singletonList(root);
+        for (int i = 0; i < depth && !frontier.isEmpty(); ++i) {
+            List<Vertex> next = new ArrayList<>();
+
+            for (Vertex v : frontier) {
+                for (Edge e : v.getEdges(Direction.BOTH, relationshipNames)) {
+                    if (relationships.containsKey(e.getId())) {
+                        continue;
+                    }
+
+                    Vertex from = e.getVertex(Direction.OUT);
+                    Vertex to = e.getVertex(Direction.IN);
+                    Vertex other = from.getId().equals(v.getId()) ? to : from;
+
+                    if (!entities.containsKey(other.getId())) {
+                        entities.put(other.getId(), convert(other, context.getTypeDefinitions()));
+                        next.add(other);
+                    }
+
+                    Relationship r = new Relationship(getUid(e), e.getLabel(), entities.get(from.getId()),
+                            entities.get(to.getId()));
+                    copyProperties(e, r);
+
+                    relationships.put(e.getId(), r);
+                }
+            }
+
+            frontier = next;
+        }
+
+        Entity rootEntity = entities.remove(root.getId());
+
+        return new Subgraph<>(entityClass.cast(rootEntity), new HashSet<>(entities.values()),
+                new HashSet<>(relationships.values()));
+    }
+
     public RelationshipService relationships() {
         return relationships(Relationships.Direction.outgoing);
     }
@@ -16,28 +16,46 @@
  */
 package org.hawkular.inventory.impl.tinkerpop;
 
+import com.tinkerpop.blueprints.Contains;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Vertex;
+import org.hawkular.inventory.api.EntityNotFoundException;
+import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.Feed;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.api.model.MetricUnit;
+import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Lukas Krejci
  * @since 1.0
  */
 abstract class AbstractGraphService {
+    /**
+     * The most candidates found in an index that the traversals start from, see
+     * {@link #sourceFromCandidates(FilterApplicator[])}.
+     */
+    private static final int MAX_CANDIDATES_TO_START_FROM = 1000;
+
     protected final InventoryContext context;
     protected final FilterApplicator[] path;
 
@@ -47,20 +65,143 @@ abstract class AbstractGraphService {
     }
 
     protected HawkularPipeline<?, Vertex> source(FilterApplicator<?>... filters) {
-        HawkularPipeline<Object, Vertex> ret = new HawkularPipeline<>(new ResettableSingletonPipe<>(context.getGraph()))
-                .V();
+        FilterApplicator<?>[] fullPath = Arrays.copyOf(path, path.length + filters.length);
+        System.arraycopy(filters, 0, fullPath, path.length, filters.length);
 
-        for (FilterApplicator<?> fa : path) {
-            fa.applyTo(ret);
+        HawkularPipeline<?, Vertex> fromCandidates = sourceFromCandidates(fullPath);
+        if (fromCandidates != null) {
+            return fromCandidates;
         }
 
-        for (FilterApplicator<?> fa : filters) {
+        //the vertices that are not entities share the graph with them, but must never be reached by the traversals
+        @SuppressWarnings("unchecked")
+        HawkularPipeline<Object, Vertex> ret = (HawkularPipeline<Object, Vertex>)
+                new HawkularPipeline<>(new ResettableSingletonPipe<>(context.getGraph())).V()
+                        .has(Constants.Property.type.name(), Contains.NOT_IN, Constants.NON_ENTITY_TYPES);
+
+        for (FilterApplicator<?> fa : fullPath) {
             fa.applyTo(ret);
         }
 
         return ret;
     }
 
+    /**
+     * If the vertices at the end of the path are filtered by the candidates found in an index and the path only goes
+     * down the "contains" tree, the traversal can start from the candidates and walk up the tree, checking the filters
+     * of each level on the way. Each vertex has at most one parent, so this only visits the ancestors of the
+     * candidates, instead of all the children of all the parents the path goes through.
+     *
+     * @param fullPath the path to the vertices. If the candidates are looked up, their filter is replaced in the array
+     *                 by one that doesn't look them up again.
+     * @return the pipeline starting from the candidates or null if the traversal needs to start from the path's start
+     */
+    private HawkularPipeline<?, Vertex> sourceFromCandidates(FilterApplicator<?>[] fullPath) {
+        //the filters of each level of the tree and the types of the children the steps between the levels go to
+        List<List<FilterApplicator<?>>> levels = new ArrayList<>();
+        List<Class<? extends Entity>> childTypes = new ArrayList<>();
+        levels.add(new ArrayList<>());
+        int candidatesIndex = -1;
+
+        for (int i = 0; i < fullPath.length; ++i) {
+            FilterApplicator<?> fa = fullPath[i];
+            if (FilterApplicator.isSingleContainsStep(fa)) {
+                levels.add(new ArrayList<>());
+                childTypes.add(fa.filter instanceof RelatedOfTypeFilter
+                        ? ((RelatedOfTypeFilter) fa.filter).getTargetType() : null);
+                candidatesIndex = -1;
+            } else if (FilterApplicator.isVertexFilter(fa)) {
+                if (candidatesIndex < 0 && fa.filter instanceof IndexedCandidatesFilter) {
+                    candidatesIndex = i;
+                } else {
+                    levels.get(levels.size() - 1).add(fa);
+                }
+            } else {
+                return null;
+            }
+        }
+
+        if (candidatesIndex < 0) {
+            return null;
+        }
+
+        FilterApplicator<?> candidatesStep = fullPath[candidatesIndex];
+        IndexedCandidatesFilter candidates = (IndexedCandidatesFilter) candidatesStep.filter;
+        Set<Object> ids = candidates.getCandidateIds().get();
+
+        if (ids.size() > MAX_CANDIDATES_TO_START_FROM) {
+            //walking up from that many vertices is likely more expensive than the traversal down to them
+            fullPath[candidatesIndex] = FilterApplicator.with(candidatesStep.type,
+                    new IndexedCandidatesFilter(candidates.getOriginal(), () -> ids));
+            return null;
+        }
+
+        List<Vertex> starts = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            Vertex v = context.getGraph().getVertex(id);
+            if (v != null) {
+                starts.add(v);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        HawkularPipeline<Object, Vertex> ret = (HawkularPipeline<Object, Vertex>) new HawkularPipeline<>(starts)
+                .has(Constants.Property.type.name(), Contains.NOT_IN, Constants.NON_ENTITY_TYPES);
+
+        int last = levels.size() - 1;
+        levels.get(last).forEach(fa -> fa.applyTo(ret));
+
+        if (last > 0) {
+            ret.remember();
+
+            for (int i = last; i > 0; --i) {
+                Class<? extends Entity> childType = childTypes.get(i - 1);
+                if (childType != null) {
+                    ret.hasType(Constants.Type.of(childType));
+                }
+
+                ret.in(Relationships.WellKnown.contains.name());
+                levels.get(i - 1).forEach(fa -> fa.applyTo(ret));
+            }
+
+            ret.recall();
+        }
+
+        return ret;
+    }
+
+    /**
+     * Looks up the vertices of the type definitions with given id in the tenants of the provided environments.
+     *
+     * @param environments the environment vertices
+     * @param type         the type of the definitions (resource type or metric type)
+     * @param id           the id of the definitions
+     * @return the vertices of the definitions
+     * @throws EntityNotFoundException if there is no definition with given id in any of the tenants
+     */
+    protected Set<Vertex> getDefinitionVertices(Collection<Vertex> environments, Constants.Type type, String id) {
+        Set<Vertex> tenants = new HashSet<>();
+        environments.forEach(env -> tenants.add(getTenantVertexOf(env)));
+
+        Set<Vertex> ret = new HashSet<>();
+        for (Vertex tenant : tenants) {
+            Object vertexId = context.getTypeDefinitions().getVertexId(tenant, type, id);
+            Vertex v = vertexId == null ? null : context.getGraph().getVertex(vertexId);
+            if (v != null) {
+                ret.add(v);
+            }
+        }
+
+        if (ret.isEmpty()) {
+            Class<? extends Entity> definitionClass = type == Constants.Type.resourceType ? ResourceType.class
+                    : MetricType.class;
+            throw new EntityNotFoundException(definitionClass,
+                    Filter.by(With.type(definitionClass), With.id(id)).get());
+        }
+
+        return ret;
+    }
+
     protected FilterApplicator.Builder pathWith(Filter... filters) {
         return pathWith(path, filters);
     }
@@ -81,10 +222,43 @@ abstract class AbstractGraphService {
         return e.getProperty(Constants.Property.uid.name());
     }
 
+    /**
+     * Copies the custom properties of the edge, i.e. all but the {@link Constants#EDGE_MAPPED_PROPERTIES}, into the
+     * properties of the relationship.
+     *
+     * @param e the edge to read the properties from
+     * @param r the relationship representing the edge
+     */
+    static void copyProperties(Edge e, Relationship r) {
+        e.getPropertyKeys().forEach(k -> {
+            if (!Constants.EDGE_MAPPED_PROPERTIES.contains(k)) {
+                r.getProperties().put(k, e.getProperty(k));
+            }
+        });
+    }
+
     static String getType(Vertex v) {
         return getProperty(v, Constants.Property.type);
     }
 
+    /**
+     * Adds a new edge between the provided vertices. All edges should be created using this method, because it also
+     * stores the id of the new edge in the {@code uid} property - Titan cannot filter on ids and the edges are looked
+     * up by that property using an index. The type of the target vertex is stored in the {@code targetType}
+     * property so that the edges can be partitioned by it (see {@link RelatedOfTypeFilter}).
+     *
+     * @param outVertex the source of the edge
+     * @param label the label of the edge
+     * @param inVertex the target of the edge
+     * @return the new edge
+     */
+    static Edge addEdge(Vertex outVertex, String label, Vertex inVertex) {
+        Edge newEdge = outVertex.addEdge(label, inVertex);
+        newEdge.setProperty(Constants.Property.uid.name(), newEdge.getId().toString());
+        newEdge.setProperty(Constants.Property.targetType.name(), getType(inVertex));
+        return newEdge;
+    }
+
     protected Vertex convert(Entity e) {
         HawkularPipeline<Object, Vertex> ret = new HawkularPipeline<>(new ResettableSingletonPipe<>(context.getGraph()))
                 .V().hasType(Constants.Type.of(e)).hasUid(e.getId()).cast(Vertex.class);
@@ -95,7 +269,54 @@ abstract class AbstractGraphService {
         return vertex;
     }
 
+    /**
+     * Looks up the vertices of all the provided entities. This issues a single query for each type of the entities
+     * rather than a query for each entity.
+     *
+     * @param entities the entities to find the vertices of
+     * @return the vertices in the same order as the provided entities
+     * @throws EntityNotFoundException if any of the entities cannot be found
+     */
+    protected List<Vertex> convert(Collection<? extends Entity> entities) {
+        Map<Constants.Type, Set<String>> idsByType = new EnumMap<>(Constants.Type.class);
+        for (Entity e : entities) {
+            idsByType.computeIfAbsent(Constants.Type.of(e), t -> new HashSet<>()).add(e.getId());
+        }
+
+        Map<Constants.Type, Map<String, Vertex>> verticesByType = new EnumMap<>(Constants.Type.class);
+        idsByType.forEach((type, ids) -> {
+            Map<String, Vertex> vertices = new HashMap<>();
+            new HawkularPipeline<>(new ResettableSingletonPipe<>(context.getGraph())).V().hasType(type)
+                    .hasUids(ids).cast(Vertex.class).forEach(v -> vertices.putIfAbsent(getUid(v), v));
+            verticesByType.put(type, vertices);
+        });
+
+        List<Vertex> ret = new ArrayList<>(entities.size());
+        for (Entity e : entities) {
+            Vertex v = verticesByType.get(Constants.Type.of(e)).get(e.getId());
+            if (v == null) {
+                throw new EntityNotFoundException(e.getClass(), Filter.by(With.type(e.getClass()),
+                        With.id(e.getId())).get());
+            }
+            ret.add(v);
+        }
+
+        return ret;
+    }
+
     static Entity convert(Vertex v) {
+        return convert(v, null);
+    }
+
+    /**
+     * Converts the vertex into an entity, looking up the types of resources and metrics in the provided type
+     * definitions rather than converting them anew.
+     *
+     * @param v     the vertex to convert
+     * @param types the type definitions to use, may be null
+     * @return the entity corresponding to the vertex
+     */
+    static Entity convert(Vertex v, TypeDefinitions types) {
         Constants.Type type = Constants.Type.valueOf(getType(v));
 
         Vertex environmentVertex;
@@ -114,7 +335,7 @@ abstract class AbstractGraphService {
                 environmentVertex = getEnvironmentVertexOf(v);
                 Vertex mdv = v.getVertices(Direction.IN, Constants.Relationship.defines.name()).iterator()
                         .next();
-                MetricType md = (MetricType) convert(mdv);
+                MetricType md = (MetricType) (types == null ? convert(mdv) : types.getDefinition(mdv));
                 e = new Metric(getUid(getTenantVertexOf(environmentVertex)), getUid(environmentVertex), getUid(v),
                         md);
                 break;
@@ -125,7 +346,7 @@ abstract class AbstractGraphService {
             case resource:
                 environmentVertex = getEnvironmentVertexOf(v);
                 Vertex rtv = v.getVertices(Direction.IN, Constants.Relationship.defines.name()).iterator().next();
-                ResourceType rt = (ResourceType) convert(rtv);
+                ResourceType rt = (ResourceType) (types == null ? convert(rtv) : types.getDefinition(rtv));
                 e = new Resource(getUid(getTenantVertexOf(environmentVertex)), getUid(environmentVertex), getUid(v),
                         rt);
                 break;
@@ -17,20 +17,30 @@
 
 package org.hawkular.inventory.impl.tinkerpop;
 
+import com.tinkerpop.blueprints.Contains;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
 import org.hawkular.inventory.api.EntityNotFoundException;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.PropertyOperator;
+import org.hawkular.inventory.api.filters.Related;
 import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.impl.tinkerpop.spi.TextQuery;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
@@ -42,6 +52,12 @@ import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
 abstract class AbstractSourcedGraphService<Single, Multiple, E extends Entity, Blueprint>
         extends AbstractGraphService {
 
+    /**
+     * The number of the edges created in a single transaction when relating many entities on a graph with
+     * {@link org.hawkular.inventory.impl.tinkerpop.spi.Capabilities#isBatchLoading() batch loading}.
+     */
+    private static final int RELATE_BATCH_SIZE = 1000;
+
     protected final Class<E> entityClass;
     protected final PathContext pathContext;
 
@@ -61,30 +77,226 @@ abstract class AbstractSourcedGraphService<Single, Multiple, E extends Entity, B
 
     @SuppressWarnings("UnusedDeclaration")
     public Multiple getAll(Filter... filters) {
-        return createMultiBrowser(pathWith(selectCandidates()).andFilter(filters).get());
+        return createMultiBrowser(pathWith(selectCandidates()).andFilter(useIndices(filters)).get());
+    }
+
+    /**
+     * Replaces the equality filters on the indexed properties of the entities with the lookups in the indices and the
+     * transitive filters on the relationships with a given entity with the vertices reachable from that entity.
+     *
+     * @param filters the filters to process
+     * @return the filters to actually apply
+     */
+    private Filter[] useIndices(Filter... filters) {
+        //without the indices, the lookups would scan the whole graph, checking the values on the traversed vertices
+        //is cheaper
+        boolean keyIndices = context.getCapabilities().isKeyIndices();
+
+        Filter[] ret = new Filter[filters.length];
+
+        for (int i = 0; i < filters.length; ++i) {
+            ret[i] = filters[i];
+
+            if (filters[i] instanceof Related) {
+                Related<?> f = (Related<?>) filters[i];
+                if (f.isTransitive() && f.getEntity() != null && f.getRelationshipName() != null) {
+                    ret[i] = new IndexedCandidatesFilter(f, () -> findReachable(f));
+                }
+            } else if (keyIndices && filters[i] instanceof With.PropertyValues) {
+                With.PropertyValues f = (With.PropertyValues) filters[i];
+                if ((f.getOperator() == PropertyOperator.EQUAL || f.getOperator() == PropertyOperator.IN)
+                        && context.isIndexed(entityClass, f.getProperty())) {
+
+                    ret[i] = new IndexedCandidatesFilter(f, () -> findInIndex(f.getProperty(), f.getValues()));
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Finds the vertices that the transitive filter would accept. These are reachable from the entity of the filter
+     * when following the relationships in the opposite direction than the filter does. This is a single traversal
+     * from the entity instead of a traversal towards it from each of the filtered vertices.
+     */
+    private Set<Object> findReachable(Related<?> related) {
+        Set<Object> ret = new HashSet<>();
+
+        Vertex start = convert(related.getEntity());
+        if (start == null) {
+            return ret;
+        }
+
+        Direction direction;
+        switch (related.getEntityRole()) {
+            case TARGET:
+                direction = Direction.OUT;
+                break;
+            case SOURCE:
+                direction = Direction.IN;
+                break;
+            default:
+                direction = Direction.BOTH;
+        }
+
+        int maxDepth = related.getMaxDepth();
+        Set<Object> visited = new HashSet<>();
+        visited.add(start.getId());
+        List<Vertex> frontier = Collections.singletonList(start);
+
+        for (int depth = 1; !frontier.isEmpty() && (maxDepth <= 0 || depth <= maxDepth); ++depth) {
+            List<Vertex> next = new ArrayList<>();
+            for (Vertex v : frontier) {
+                for (Vertex w : v.getVertices(direction, related.getRelationshipName())) {
+                    ret.add(w.getId());
+                    if (visited.add(w.getId())) {
+                        next.add(w);
+                    }
+                }
+            }
+            frontier = next;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Looks up the vertices of the entities of the type of this service with any of the values of the property in a
+     * single index query. If the current position in the traversal is within a single tenant, only the vertices of that
+     * tenant are looked up.
+     */
+    private Set<Object> findInIndex(String property, Object... values) {
+        String type = Constants.Type.of(entityClass).name();
+        String tenantId = FilterApplicator.tenantIdOf(pathWith(selectCandidates()).get());
+
+        GraphQuery q = context.getGraph().query().has(Constants.Property.type.name(), type);
+        if (tenantId != null) {
+            q = q.has(Constants.Property.tenantUid.name(), tenantId);
+        }
+
+        if (values.length == 1) {
+            q = q.has(property, values[0]);
+        } else {
+            q = q.has(property, Contains.IN, Arrays.asList(values));
+        }
+
+        Set<Object> ids = new HashSet<>();
+        q.vertices().forEach(v -> ids.add(v.getId()));
+
+        return ids;
     }
 
     public Single get(String id) {
         return createSingleBrowser(pathWith(selectCandidates()).andPath(With.ids(id)).get());
     }
 
+    public Multiple get(String... ids) {
+        Filter filter = With.ids(ids);
+
+        if (context.getCapabilities().isKeyIndices()) {
+            //a single lookup of the ids in the type+uid index. The traversal then starts from the found vertices and
+            //only checks their parents instead of checking every id on every child of the parent.
+            filter = new IndexedCandidatesFilter(filter, () -> findInIndex(Constants.Property.uid.name(),
+                    (Object[]) ids));
+        }
+
+        return createMultiBrowser(pathWith(selectCandidates()).andFilter(filter).get());
+    }
+
+    public Multiple search(String text) {
+        if (null == text) {
+            throw new IllegalArgumentException("text was null");
+        }
+
+        //the index knows nothing about the current position in the traversal, so the traversal only keeps the found
+        //vertices that it reaches
+        Filter filter = new IndexedCandidatesFilter(null, () -> searchInIndex(text));
+
+        return createMultiBrowser(pathWith(selectCandidates()).andFilter(filter).get());
+    }
+
+    /**
+     * Finds the vertices of the entities of the type of this service whose id starts with the text or whose searchable
+     * properties contain it. If the current position in the traversal is within a single tenant, only the vertices of
+     * that tenant are looked for.
+     */
+    private Set<Object> searchInIndex(String text) {
+        String type = Constants.Type.of(entityClass).name();
+        String tenantId = FilterApplicator.tenantIdOf(pathWith(selectCandidates()).get());
+
+        List<TextQuery> queries = new ArrayList<>();
+        queries.add(scopedTextQuery(type, tenantId).withPrefix(Constants.Property.uid.name(), text).build());
+
+        for (String property : context.getSearchableProperties()) {
+            queries.add(scopedTextQuery(type, tenantId).withSubstring(property, text).build());
+        }
+
+        Set<Object> ids = new HashSet<>();
+        for (TextQuery q : queries) {
+            context.getGraphProvider().search(context.getBaseGraph(), q).forEach(v -> ids.add(v.getId()));
+        }
+
+        return ids;
+    }
+
+    private static TextQuery.Builder scopedTextQuery(String type, String tenantId) {
+        TextQuery.Builder bld = TextQuery.builder().withRequiredValue(Constants.Property.type.name(), type);
+        if (tenantId != null) {
+            bld.withRequiredValue(Constants.Property.tenantUid.name(), tenantId);
+        }
+
+        return bld;
+    }
+
     public Single create(Blueprint blueprint) {
         String id = getProposedId(blueprint);
 
-        Iterable<Vertex> check = source(pathWith(selectCandidates()).andFilter(With.ids(id)).get());
+        //the check for the existing entity and the creation of the new one need to be atomic. Only the creations
+        //of the same entity under the same parent conflict.
+        String lockKey = Arrays.toString(FilterApplicator.filters(this.path)) + "/"
+                + Constants.Type.of(entityClass).name() + "/" + id;
+        Lock lock = context.getLockProvider().getLock(lockKey);
 
-        if (check.iterator().hasNext()) {
-            throw new IllegalArgumentException("Entity with type '" + entityClass.getSimpleName() + " ' and id '" + id
-                    + "' already exists.");
-        }
+        Filter[] path;
+        String definitionsTenant;
 
-        Vertex v = context.getGraph().addVertex(id);
-        v.setProperty(Constants.Property.type.name(), Constants.Type.of(entityClass).name());
-        v.setProperty(Constants.Property.uid.name(), id);
+        lock.lock();
+        try {
+            Iterable<Vertex> check = source(pathWith(selectCandidates()).andFilter(With.ids(id)).get());
 
-        Filter[] path = initNewEntity(v, blueprint);
+            if (check.iterator().hasNext()) {
+                throw new IllegalArgumentException("Entity with type '" + entityClass.getSimpleName() + " ' and id '"
+                        + id + "' already exists.");
+            }
 
-        context.getGraph().commit();
+            Vertex v = context.getGraph().addVertex(id);
+            v.setProperty(Constants.Property.type.name(), Constants.Type.of(entityClass).name());
+            v.setProperty(Constants.Property.uid.name(), id);
+
+            path = initNewEntity(v, blueprint);
+            definitionsTenant = getDefinitionsTenantOf(v);
+
+            Vertex tenant = getTenantVertexOf(v);
+            v.setProperty(Constants.Property.tenantUid.name(), getUid(tenant == null ? v : tenant));
+
+            context.getGraph().commit();
+
+            context.getQueryResultCache().created(v);
+        } catch (Exception e) {
+            //the new entity must not stay half-initialized in the transaction
+            context.getGraph().rollback();
+            throw e;
+        } finally {
+            lock.unlock();
+        }
+
+        if (definitionsTenant != null) {
+            context.getTypeDefinitions().invalidate(definitionsTenant);
+        }
+
+        //the paths to the new entity might have been remembered as leading nowhere
+        context.getMissingEntityCache().invalidate(id);
 
         return createSingleBrowser(FilterApplicator.fromPath(path).get());
     }
@@ -106,6 +318,8 @@ abstract class AbstractSourcedGraphService<Single, Multiple, E extends Entity, B
 
         Set<String> toRemove = vertex.getPropertyKeys();
         toRemove.removeAll(entity.getProperties().keySet());
+        //the mapped properties are not part of the entity's properties but must stay on the vertex
+        toRemove.removeAll(mappedProperties);
 
         toRemove.forEach(vertex::removeProperty);
         entity.getProperties().forEach(vertex::setProperty);
@@ -113,6 +327,14 @@ abstract class AbstractSourcedGraphService<Single, Multiple, E extends Entity, B
         updateExplicitProperties(entity, vertex);
 
         context.getGraph().commit();
+
+        context.getEntityCache().invalidate(vertex.getId());
+        context.getQueryResultCache().updated(vertex);
+
+        String definitionsTenant = getDefinitionsTenantOf(vertex);
+        if (definitionsTenant != null) {
+            context.getTypeDefinitions().invalidate(definitionsTenant);
+        }
     }
 
     public void delete(String id) {
@@ -126,6 +348,7 @@ abstract class AbstractSourcedGraphService<Single, Multiple, E extends Entity, B
         }
 
         Vertex v = vs.next();
+        String definitionsTenant = getDefinitionsTenantOf(v);
 
         Set<Vertex> verticesToBeDeletedThatDefineSomething = new HashSet<>();
 
@@ -169,6 +392,31 @@ abstract class AbstractSourcedGraphService<Single, Multiple, E extends Entity, B
             context.getGraph().rollback();
             throw e;
         }
+
+        //other paths could lead through the deleted entities
+        context.getEntityCache().invalidateAll();
+        context.getQueryResultCache().invalidateAll();
+
+        if (definitionsTenant != null) {
+            context.getTypeDefinitions().invalidate(definitionsTenant);
+        }
+    }
+
+    /**
+     * @param v the vertex of an entity
+     * @return the id of the tenant whose type definitions are affected by changes to the entity or null if there is
+     * no such tenant
+     */
+    private static String getDefinitionsTenantOf(Vertex v) {
+        switch (Constants.Type.valueOf(getType(v))) {
+            case tenant:
+                return getUid(v);
+            case resourceType:
+            case metricType:
+                return getUid(getTenantVertexOf(v));
+            default:
+                return null;
+        }
     }
 
     /**
@@ -187,11 +435,53 @@ abstract class AbstractSourcedGraphService<Single, Multiple, E extends Entity, B
     }
 
     protected void addRelationship(Constants.Type typeInSource, Relationships.WellKnown rel, Iterable<Vertex> others) {
-        for (Vertex v : source().hasType(typeInSource)) {
-            for (Vertex o : others) {
-                v.addEdge(rel.name(), o);
+        relate(typeInSource, rel, others);
+
+        //the new edges can form new paths to the existing entities
+        context.getMissingEntityCache().invalidateAll();
+        relationshipsChanged();
+    }
+
+    /**
+     * Relates all the provided vertices with the vertices of given type in the source and commits the changes at once.
+     *
+     * <p>Outside of a unit of work on a graph with
+     * {@link org.hawkular.inventory.impl.tinkerpop.spi.Capabilities#isBatchLoading() batch loading}, the edges are
+     * created in batch transactions of {@value #RELATE_BATCH_SIZE} edges instead, each committed on its own. A failure
+     * then leaves the edges of the already committed batches in place.
+     *
+     * @param typeInSource the type of the vertices in the source to relate with the others
+     * @param rel the relationship to create
+     * @param ids the ids of the entities that were requested to be related
+     * @param others the vertices of the requested entities found in the graph
+     * @return the ids that no vertex was found for
+     */
+    protected Set<String> addRelationships(Constants.Type typeInSource, Relationships.WellKnown rel,
+                                           Collection<String> ids, Iterable<Vertex> others) {
+        Set<String> notFound = new HashSet<>(ids);
+        List<Vertex> targets = new ArrayList<>();
+
+        for (Vertex o : others) {
+            targets.add(o);
+            notFound.remove(getUid(o));
+        }
+
+        if (context.getCapabilities().isBatchLoading() && context.getTransaction() == null) {
+            relateInBatches(typeInSource, rel, targets);
+        } else {
+            try {
+                relate(typeInSource, rel, targets);
+                context.getGraph().commit();
+            } catch (Exception e) {
+                context.getGraph().rollback();
+                throw e;
             }
         }
+
+        context.getMissingEntityCache().invalidateAll();
+        relationshipsChanged();
+
+        return notFound;
     }
 
     protected void removeRelationship(Constants.Type typeInSource, Relationships.WellKnown rel,
@@ -203,6 +493,93 @@ abstract class AbstractSourcedGraphService<Single, Multiple, E extends Entity, B
                 .and(new HawkularPipeline<Edge, Object>().inV().hasType(myType).hasUid(targetUid));
 
         edges.forEach(context.getGraph()::removeEdge);
+
+        context.getEntityCache().invalidateAll();
+        relationshipsChanged();
+    }
+
+    protected Set<String> removeRelationships(Constants.Type typeInSource, Relationships.WellKnown rel,
+                                              Collection<String> targetUids) {
+
+        Constants.Type myType = Constants.Type.of(entityClass);
+        Set<String> notFound = new HashSet<>(targetUids);
+
+        List<Edge> edges = source().hasType(typeInSource).outE(rel.name())
+                .and(new HawkularPipeline<Edge, Object>().inV().hasType(myType).hasUids(targetUids)).toList();
+
+        try {
+            for (Edge e : edges) {
+                notFound.remove(getUid(e.getVertex(Direction.IN)));
+                context.getGraph().removeEdge(e);
+            }
+            context.getGraph().commit();
+        } catch (Exception e) {
+            context.getGraph().rollback();
+            throw e;
+        }
+
+        context.getEntityCache().invalidateAll();
+        relationshipsChanged();
+
+        return notFound;
+    }
+
+    private void relate(Constants.Type typeInSource, Relationships.WellKnown rel, Iterable<Vertex> others) {
+        for (Vertex v : source().hasType(typeInSource)) {
+            for (Vertex o : others) {
+                addEdge(v, rel.name(), o);
+            }
+        }
+    }
+
+    private void relateInBatches(Constants.Type typeInSource, Relationships.WellKnown rel, List<Vertex> others) {
+        if (others.isEmpty()) {
+            return;
+        }
+
+        List<Object> sourceIds = new ArrayList<>();
+        source().hasType(typeInSource).forEach(v -> sourceIds.add(v.getId()));
+
+        //the batch transactions don't see the changes of the graph's own transaction, so there must be none
+        context.getGraph().commit();
+
+        Iterator<Object> sources = sourceIds.iterator();
+        Object sourceId = null;
+        int next = 0;
+
+        while (sources.hasNext() || (sourceId != null && next < others.size())) {
+            TransactionalGraph tx = context.getGraphProvider().startBatchTransaction(context.getBaseGraph());
+            try {
+                int cnt = 0;
+                while (cnt < RELATE_BATCH_SIZE) {
+                    if (sourceId == null || next == others.size()) {
+                        if (!sources.hasNext()) {
+                            break;
+                        }
+                        sourceId = sources.next();
+                        next = 0;
+                    }
+
+                    //the vertices need to be looked up again in each transaction
+                    Vertex v = tx.getVertex(sourceId);
+                    for (; next < others.size() && cnt < RELATE_BATCH_SIZE; ++next, ++cnt) {
+                        addEdge(v, rel.name(), tx.getVertex(others.get(next).getId()));
+                    }
+                }
+
+                tx.commit();
+            } catch (Exception e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * The new or removed edges can change where any path leads, so the cached query results can no longer be trusted.
+     */
+    private void relationshipsChanged() {
+        context.getQueryResultCache().invalidateAll();
     }
 
     protected abstract Single createSingleBrowser(FilterApplicator... path);
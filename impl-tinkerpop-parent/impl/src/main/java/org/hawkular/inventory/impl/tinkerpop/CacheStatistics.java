@@ -0,0 +1,65 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+/**
+ * A snapshot of the statistics of a cache used by the inventory.
+ *
+ * @author agent
+ * @since 1.0
+ */
+public final class CacheStatistics {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+
+    public CacheStatistics(long hits, long misses, long evictions, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return the number of the entries evicted from the cache because it was full or the entries expired
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * @return the number of the entries in the cache
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics[hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", size=" + size
+                + "]";
+    }
+}
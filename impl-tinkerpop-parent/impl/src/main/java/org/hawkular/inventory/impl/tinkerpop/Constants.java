@@ -27,6 +27,8 @@ import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.unit;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Property.version;
@@ -39,11 +41,50 @@ final class Constants {
 
     /**
      * The vertices in the graph have certain well-known properties.
+     *
+     * <p>Every entity vertex holds the id of the tenant it belongs to in the {@code tenantUid} property, so that the
+     * index lookups can be restricted to a single tenant.
+     *
+     * <p>The edges have the {@code uid} and the {@code targetType} properties. The latter holds the type of the
+     * vertex the edge points to.
+     *
+     * <p>The {@code indexedType}, {@code indexedProperty} and {@code valueType} are the properties of the vertices
+     * holding the declarations of the property indices (see {@link #PROPERTY_INDEX_TYPE}).
+     *
+     * <p>The {@code edgeTargetTypes} and {@code vertexTenantUids} are the properties of the metadata vertex (see
+     * {@link #METADATA_TYPE}).
      */
     enum Property {
-        type, uid, version, unit
+        type, uid, tenantUid, version, unit, targetType, indexedType, indexedProperty, valueType, edgeTargetTypes,
+        vertexTenantUids
     }
 
+    /**
+     * The value of the {@code type} property of the vertices holding the declarations of the property indices. These
+     * vertices are not entities and are never connected to any other vertex.
+     */
+    static final String PROPERTY_INDEX_TYPE = "propertyIndex";
+
+    /**
+     * The value of the {@code type} property of the single vertex holding the metadata about the graph itself, like
+     * whether the {@code targetType} of all the edges has been filled in. Like the property index declarations, this
+     * vertex is not an entity and is never connected to any other vertex.
+     */
+    static final String METADATA_TYPE = "inventoryMetadata";
+
+    /**
+     * The types of the vertices that are not entities and therefore must never be visited by the traversals.
+     */
+    static final List<String> NON_ENTITY_TYPES = Collections.unmodifiableList(Arrays.asList(PROPERTY_INDEX_TYPE,
+            METADATA_TYPE));
+
+    /**
+     * The properties the inventory itself stores on the edges. They are not part of the properties of the
+     * relationships and cannot be set to custom values.
+     */
+    static final List<String> EDGE_MAPPED_PROPERTIES = Collections.unmodifiableList(Arrays.asList(
+            Property.uid.name(), Property.targetType.name()));
+
     /**
      * The type of entities known to Hawkular.
      */
@@ -54,9 +95,13 @@ final class Constants {
 
 
         private Type(Property... mappedProperties) {
-            this.mappedProperties = new String[mappedProperties.length + 2];
-            Arrays.setAll(this.mappedProperties, i -> i == 0 ? Property.type.name() :
-                    (i == 1 ? Property.uid.name() : mappedProperties[i - 2].name()));
+            this.mappedProperties = new String[mappedProperties.length + 3];
+            this.mappedProperties[0] = Property.type.name();
+            this.mappedProperties[1] = Property.uid.name();
+            this.mappedProperties[2] = Property.tenantUid.name();
+            for (int i = 0; i < mappedProperties.length; ++i) {
+                this.mappedProperties[i + 3] = mappedProperties[i].name();
+            }
         }
 
         public static Type of(Entity e) {
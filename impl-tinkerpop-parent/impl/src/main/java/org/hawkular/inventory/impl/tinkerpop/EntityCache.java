@@ -0,0 +1,326 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import org.hawkular.inventory.api.filters.Related;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.EntityVisitor;
+import org.hawkular.inventory.api.model.Environment;
+import org.hawkular.inventory.api.model.Feed;
+import org.hawkular.inventory.api.model.Metric;
+import org.hawkular.inventory.api.model.MetricType;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.Tenant;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A cache of the entities keyed by the paths that lead to them.
+ *
+ * <p>Only the "canonical" paths are cached, i.e. the paths that consist only of the id, type and simple relationship
+ * filters and end with the id of the entity. Each cached entity remembers the vertices it was converted from, so that
+ * an update of any of them invalidates it. The modifications that can make a path lead elsewhere (deletes of
+ * entities and relationships) invalidate the whole cache.
+ *
+ * <p>The cache is read on every lookup of a single entity, so it doesn't serialize the threads on a single monitor.
+ * A read that started before an invalidation is still not allowed to store its (possibly stale) result in the cache.
+ * This is what the {@link #getGeneration() generation} is for. When the cache grows over its maximum size, the least
+ * recently used entries are evicted in a batch.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class EntityCache {
+    private final int maxSize;
+    private final long ttlMillis;
+    private final ConcurrentHashMap<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Object, Set<String>> keysByDependency = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize   the maximum number of the cached entities, 0 disables the cache
+     * @param ttlMillis the number of milliseconds after which the cached entities expire
+     */
+    EntityCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * @param path the path to the entity
+     * @return the key to cache the entity under or null if the path is not cacheable
+     */
+    static String keyOf(FilterApplicator<?>... path) {
+        if (path.length == 0 || !(path[path.length - 1].filter instanceof With.Ids)) {
+            return null;
+        }
+
+        StringBuilder bld = new StringBuilder();
+        for (FilterApplicator<?> fa : path) {
+            if (fa.filter instanceof With.Ids) {
+                if (((With.Ids) fa.filter).getIds().length != 1) {
+                    return null;
+                }
+            } else if (fa.filter instanceof Related) {
+                Related<?> r = (Related<?>) fa.filter;
+                if (r.getEntity() != null || r.getRelationshipId() != null || r.isTransitive()) {
+                    return null;
+                }
+            } else if (!(fa.filter instanceof With.Types) && !(fa.filter instanceof RelatedOfTypeFilter)) {
+                return null;
+            }
+
+            bld.append(fa.type.name()).append(':').append(fa.filter).append('/');
+        }
+
+        return bld.toString();
+    }
+
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @param key the key of the entity
+     * @return a copy of the cached entity or null if there is no valid entity cached under the key
+     */
+    Entity get(String key) {
+        CacheEntry e = entries.get(key);
+
+        long now = System.currentTimeMillis();
+        if (e != null && e.expiresAt < now) {
+            remove(key, e);
+            evictions.increment();
+            e = null;
+        }
+
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+
+        e.lastAccess = now;
+        hits.increment();
+        return copy(e.entity);
+    }
+
+    /**
+     * Caches the entity unless the cache was invalidated since the provided generation.
+     *
+     * @param key          the key of the entity
+     * @param entity       the entity to cache
+     * @param dependencies the ids of the vertices the entity was converted from
+     * @param generation   the generation of the cache at the time the entity started to be read from the graph
+     */
+    void put(String key, Entity entity, Collection<Object> dependencies, long generation) {
+        if (generation != this.generation.get()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        CacheEntry e = new CacheEntry(copy(entity), new HashSet<>(dependencies), now + ttlMillis, now);
+
+        CacheEntry old = entries.put(key, e);
+        if (old != null) {
+            removeDependencies(key, old);
+        }
+
+        for (Object d : e.dependencies) {
+            keysByDependency.compute(d, (k, keys) -> {
+                if (keys == null) {
+                    keys = new HashSet<>();
+                }
+                keys.add(key);
+                return keys;
+            });
+        }
+
+        //an invalidation that bumped the generation before the dependencies above were registered might have missed
+        //the entry, so it must not stay in the cache
+        if (generation != this.generation.get()) {
+            remove(key, e);
+            return;
+        }
+
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Invalidates all the entities converted (also) from the vertex with the provided id.
+     *
+     * @param vertexId the id of the modified vertex
+     */
+    void invalidate(Object vertexId) {
+        generation.incrementAndGet();
+
+        Set<String> keys = keysByDependency.remove(vertexId);
+        if (keys == null) {
+            return;
+        }
+
+        //the set is only ever modified atomically with its mapping, so nobody else touches it after its removal
+        for (String key : keys) {
+            CacheEntry e = entries.remove(key);
+            if (e != null) {
+                removeDependencies(key, e);
+            }
+        }
+    }
+
+    void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+        keysByDependency.clear();
+    }
+
+    CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    /**
+     * Evicts the least recently used entries so that there is some room before the next eviction is needed. Only
+     * a single thread evicts at a time, the others just go on.
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            int target = maxSize - maxSize / 10;
+            int excess = entries.size() - target;
+            if (excess <= 0) {
+                return;
+            }
+
+            List<Map.Entry<String, CacheEntry>> candidates = new ArrayList<>(entries.entrySet());
+            candidates.sort(Comparator.comparingLong(en -> en.getValue().lastAccess));
+
+            for (int i = 0; i < excess && i < candidates.size(); ++i) {
+                Map.Entry<String, CacheEntry> en = candidates.get(i);
+                if (remove(en.getKey(), en.getValue())) {
+                    evictions.increment();
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private boolean remove(String key, CacheEntry entry) {
+        if (entries.remove(key, entry)) {
+            removeDependencies(key, entry);
+            return true;
+        }
+
+        return false;
+    }
+
+    private void removeDependencies(String key, CacheEntry entry) {
+        for (Object d : entry.dependencies) {
+            keysByDependency.computeIfPresent(d, (k, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    /**
+     * The entities are mutable, so the callers can't be given the cached instances.
+     */
+    static Entity copy(Entity entity) {
+        Entity ret = entity.accept(new EntityVisitor<Entity, Void>() {
+            @Override
+            public Entity visitTenant(Tenant tenant, Void parameter) {
+                return new Tenant(tenant.getId());
+            }
+
+            @Override
+            public Entity visitEnvironment(Environment environment, Void parameter) {
+                return new Environment(environment.getTenantId(), environment.getId());
+            }
+
+            @Override
+            public Entity visitFeed(Feed feed, Void parameter) {
+                return new Feed(feed.getTenantId(), feed.getEnvironmentId(), feed.getId());
+            }
+
+            @Override
+            public Entity visitMetric(Metric metric, Void parameter) {
+                return new Metric(metric.getTenantId(), metric.getEnvironmentId(), metric.getId(),
+                        (MetricType) copy(metric.getType()));
+            }
+
+            @Override
+            public Entity visitMetricType(MetricType definition, Void parameter) {
+                return new MetricType(definition.getTenantId(), definition.getId(), definition.getUnit());
+            }
+
+            @Override
+            public Entity visitResource(Resource resource, Void parameter) {
+                return new Resource(resource.getTenantId(), resource.getEnvironmentId(), resource.getId(),
+                        (ResourceType) copy(resource.getType()));
+            }
+
+            @Override
+            public Entity visitResourceType(ResourceType type, Void parameter) {
+                return new ResourceType(type.getTenantId(), type.getId(), type.getVersion());
+            }
+        }, null);
+
+        ret.getProperties().putAll(entity.getProperties());
+
+        return ret;
+    }
+
+    private static final class CacheEntry {
+        final Entity entity;
+        final Set<Object> dependencies;
+        final long expiresAt;
+        volatile long lastAccess;
+
+        CacheEntry(Entity entity, Set<Object> dependencies, long expiresAt, long lastAccess) {
+            this.entity = entity;
+            this.dependencies = dependencies;
+            this.expiresAt = expiresAt;
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -22,13 +22,12 @@ import org.hawkular.inventory.api.Metrics;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.Resources;
 import org.hawkular.inventory.api.filters.Filter;
-import org.hawkular.inventory.api.filters.Related;
-import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.Feed;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.Resource;
 
+import java.util.Iterator;
 import java.util.Set;
 
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
@@ -110,20 +109,26 @@ final class EnvironmentBrowser extends AbstractBrowser<Environment> {
             public Set<Environment> entities() {
                 return b.entities();
             }
+
+            @Override
+            public Iterator<Environment> entityIterator() {
+                return b.entityIterator();
+            }
         };
     }
 
     public FeedsService feeds() {
-        return new FeedsService(context, pathToHereWithSelect(Filter.by(Related.by(contains), With.type(Feed.class))));
+        return new FeedsService(context, pathToHereWithSelect(Filter.by(new RelatedOfTypeFilter(contains,
+                Feed.class))));
     }
 
     public ResourcesService resources() {
-        return new ResourcesService(context, pathToHereWithSelect(Filter.by(Related.by(contains),
-                With.type(Resource.class))));
+        return new ResourcesService(context, pathToHereWithSelect(Filter.by(new RelatedOfTypeFilter(contains,
+                Resource.class))));
     }
 
     public MetricsService metrics() {
-        return new MetricsService(context, pathToHereWithSelect(Filter.by(Related.by(contains),
-                With.type(Metric.class))));
+        return new MetricsService(context, pathToHereWithSelect(Filter.by(new RelatedOfTypeFilter(contains,
+                Metric.class))));
     }
 }
@@ -19,8 +19,6 @@ package org.hawkular.inventory.impl.tinkerpop;
 import org.hawkular.inventory.api.Feeds;
 import org.hawkular.inventory.api.Resources;
 import org.hawkular.inventory.api.filters.Filter;
-import org.hawkular.inventory.api.filters.Related;
-import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.Feed;
 import org.hawkular.inventory.api.model.Resource;
 
@@ -38,7 +36,7 @@ final class FeedBrowser extends AbstractBrowser<Feed> implements Feeds.Single, F
 
     @Override
     public Resources.Read resources() {
-        return new ResourcesService(context, pathToHereWithSelect(Filter.by(Related.by(contains),
-                With.type(Resource.class))));
+        return new ResourcesService(context, pathToHereWithSelect(Filter.by(new RelatedOfTypeFilter(contains,
+                Resource.class))));
     }
 }
@@ -43,7 +43,7 @@ final class FeedsService extends AbstractSourcedGraphService<Feeds.Single, Feeds
     protected Filter[] initNewEntity(Vertex newEntity, String blueprint) {
         Vertex env = null;
         for(Vertex sourceEnv : source().hasType(environment)) {
-            sourceEnv.addEdge(contains.name(), newEntity);
+            addEdge(sourceEnv, contains.name(), newEntity);
             env = sourceEnv;
         }
 
@@ -16,6 +16,7 @@
  */
 package org.hawkular.inventory.impl.tinkerpop;
 
+import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.filters.Contained;
 import org.hawkular.inventory.api.filters.Defined;
 import org.hawkular.inventory.api.filters.Filter;
@@ -23,10 +24,13 @@ import org.hawkular.inventory.api.filters.Owned;
 import org.hawkular.inventory.api.filters.Related;
 import org.hawkular.inventory.api.filters.RelationWith;
 import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.Tenant;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -56,6 +60,124 @@ abstract class FilterApplicator<T extends Filter> {
         return ret;
     }
 
+    /**
+     * Finds the id of the single entity of given type the path selects at given position, like the tenant at the start
+     * of the paths to the entities of a single tenant.
+     *
+     * @param path  the path to look into
+     * @param index the position of the type and id filters (in any order) in the path
+     * @param type  the type of the entity
+     * @return the id of the entity or null if the path doesn't select a single entity of the type at the position
+     */
+    static String idAt(FilterApplicator<?>[] path, int index, Class<? extends Entity> type) {
+        if (path.length < index + 2) {
+            return null;
+        }
+
+        for (int i = 0; i < 2; ++i) {
+            FilterApplicator<?> typeFilter = path[index + i];
+            FilterApplicator<?> idFilter = path[index + 1 - i];
+
+            if (typeFilter.type == FilterApplicator.Type.PATH && typeFilter.filter instanceof With.Types
+                    && Arrays.equals(((With.Types) typeFilter.filter).getTypes(), new Class<?>[]{type})
+                    && isSingleId(idFilter)) {
+                return ((With.Ids) idFilter.filter).getIds()[0];
+            }
+        }
+
+        return null;
+    }
+
+    static boolean isSingleId(FilterApplicator<?> fa) {
+        return fa.type == FilterApplicator.Type.PATH && fa.filter instanceof With.Ids
+                && ((With.Ids) fa.filter).getIds().length == 1;
+    }
+
+    static boolean isDownwardContains(FilterApplicator<?> fa) {
+        if (fa.filter instanceof RelatedOfTypeFilter) {
+            return ((RelatedOfTypeFilter) fa.filter).getRelationship() == Relationships.WellKnown.contains;
+        } else if (fa.filter instanceof Related) {
+            Related<?> r = (Related<?>) fa.filter;
+            return Relationships.WellKnown.contains.name().equals(r.getRelationshipName())
+                    && r.getEntityRole() == Related.EntityRole.SOURCE && r.getEntity() == null;
+        }
+
+        return false;
+    }
+
+    /**
+     * @param fa the step of a path
+     * @return true if the step goes down exactly one level of the "contains" tree
+     */
+    static boolean isSingleContainsStep(FilterApplicator<?> fa) {
+        if (fa.type != Type.PATH || !isDownwardContains(fa)) {
+            return false;
+        }
+
+        if (fa.filter instanceof Related) {
+            Related<?> r = (Related<?>) fa.filter;
+            return !r.isTransitive() && r.getRelationshipId() == null;
+        }
+
+        return true;
+    }
+
+    /**
+     * @param fa the step of a path
+     * @return true if the step only filters the vertices at the current position in the traversal, i.e. it can be
+     * evaluated on a vertex without knowing how the traversal got to it
+     */
+    static boolean isVertexFilter(FilterApplicator<?> fa) {
+        if (fa.filter instanceof With.Ids || fa.filter instanceof With.Types || fa.filter instanceof With.PropertyValues
+                || fa.filter instanceof IndexedCandidatesFilter) {
+            return true;
+        }
+
+        //the filters on the related entities return back to the vertex they started from
+        return fa.type == Type.FILTER && (fa.filter instanceof Related || fa.filter instanceof RelatedOfTypeFilter);
+    }
+
+    /**
+     * The "contains" relationships form a tree, so the steps down the tree and the steps that merely filter the
+     * vertices never leave the subtree they start in and never reach a vertex more than once.
+     *
+     * @param fa the step of a path
+     * @return true if the step only goes down the "contains" tree or filters the vertices
+     */
+    static boolean isTreeStep(FilterApplicator<?> fa) {
+        return fa.type != Type.PATH || isDownwardContains(fa) || fa.filter instanceof With.Ids
+                || fa.filter instanceof With.Types || fa.filter instanceof With.PropertyValues;
+    }
+
+    /**
+     * @param path the path to look into
+     * @return true if the path can lead to the same vertex more than once
+     */
+    static boolean mayRepeat(FilterApplicator<?>[] path) {
+        return !Arrays.stream(path).allMatch(FilterApplicator::isTreeStep);
+    }
+
+    /**
+     * @param path the path to look into
+     * @return the id of the tenant all the entities the path leads to belong to or null if they can belong to any
+     * tenant
+     */
+    static String tenantIdOf(FilterApplicator<?>[] path) {
+        String tenantId = idAt(path, 0, Tenant.class);
+        if (tenantId == null) {
+            return null;
+        }
+
+        //only the "contains" hierarchy of the tenant is guaranteed to stay in the tenant
+        for (int i = 2; i < path.length; ++i) {
+            if (!isTreeStep(path[i])) {
+                return null;
+            }
+        }
+
+        return tenantId;
+    }
+
     private static Map<Class<? extends  Filter>, Class<? extends FilterApplicator>> applicators;
     static {
         applicators = new HashMap<>();
@@ -65,12 +187,16 @@ abstract class FilterApplicator<T extends Filter> {
         applicators.put(Owned.class, RelatedApplicator.class);
         applicators.put(With.Ids.class, WithIdsApplicator.class);
         applicators.put(With.Types.class, WithTypesApplicator.class);
+        applicators.put(With.PropertyValues.class, WithPropertyValuesApplicator.class);
         applicators.put(RelationWith.Ids.class, RelationWithIdsApplicator.class);
         applicators.put(RelationWith.Properties.class, RelationWithPropertiesApplicator.class);
+        applicators.put(RelationWith.PropertyValues.class, RelationWithPropertyValuesApplicator.class);
         applicators.put(RelationWith.SourceOfType.class, RelationWithSourcesOfTypesApplicator.class);
         applicators.put(RelationWith.TargetOfType.class, RelationWithTargetsOfTypesApplicator.class);
         applicators.put(RelationWith.SourceOrTargetOfType.class, RelationWithSourcesOrTargetsOfTypesApplicator.class);
         applicators.put(RelationshipBrowser.JumpInOutFilter.class, RelationWithJumpInOutApplicator.class);
+        applicators.put(RelatedOfTypeFilter.class, RelatedOfTypeApplicator.class);
+        applicators.put(IndexedCandidatesFilter.class, IndexedCandidatesApplicator.class);
 
     }
 
@@ -160,6 +286,16 @@ abstract class FilterApplicator<T extends Filter> {
         }
     }
 
+    private static final class WithPropertyValuesApplicator extends FilterApplicator<With.PropertyValues> {
+        private WithPropertyValuesApplicator(With.PropertyValues filter, Type type) {
+            super(type, filter);
+        }
+
+        public void applyTo(HawkularPipeline<?, ?> query) {
+            type.visitor.visit(query, filter);
+        }
+    }
+
     public enum Type {
         PATH(new PathVisitor()), FILTER(new FilterVisitor());
 
@@ -191,6 +327,18 @@ abstract class FilterApplicator<T extends Filter> {
         }
     }
 
+    private static final class RelationWithPropertyValuesApplicator
+            extends FilterApplicator<RelationWith.PropertyValues> {
+
+        private RelationWithPropertyValuesApplicator(RelationWith.PropertyValues filter, Type type) {
+            super(type, filter);
+        }
+
+        public void applyTo(HawkularPipeline<?, ?> query) {
+            type.visitor.visit(query, filter);
+        }
+    }
+
     private static final class RelationWithSourcesOfTypesApplicator extends FilterApplicator<RelationWith
             .SourceOfType> {
 
@@ -238,6 +386,26 @@ abstract class FilterApplicator<T extends Filter> {
         }
     }
 
+    private static final class RelatedOfTypeApplicator extends FilterApplicator<RelatedOfTypeFilter> {
+        private RelatedOfTypeApplicator(RelatedOfTypeFilter filter, Type type) {
+            super(type, filter);
+        }
+
+        public void applyTo(HawkularPipeline<?, ?> query) {
+            type.visitor.visit(query, filter);
+        }
+    }
+
+    private static final class IndexedCandidatesApplicator extends FilterApplicator<IndexedCandidatesFilter> {
+        private IndexedCandidatesApplicator(IndexedCandidatesFilter filter, Type type) {
+            super(type, filter);
+        }
+
+        public void applyTo(HawkularPipeline<?, ?> query) {
+            type.visitor.visit(query, filter);
+        }
+    }
+
     static class Builder {
         private List<FilterApplicator> filters;
 
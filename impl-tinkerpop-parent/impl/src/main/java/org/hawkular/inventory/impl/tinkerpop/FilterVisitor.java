@@ -17,15 +17,20 @@
 package org.hawkular.inventory.impl.tinkerpop;
 
 import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Contains;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.pipes.Pipe;
 import com.tinkerpop.pipes.filter.PropertyFilterPipe;
+import org.hawkular.inventory.api.filters.PropertyOperator;
 import org.hawkular.inventory.api.filters.Related;
 import org.hawkular.inventory.api.filters.RelationWith;
 import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.Entity;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntPredicate;
 
 /**
  * @author Lukas Krejci
@@ -36,6 +41,30 @@ class FilterVisitor {
     public void visit(HawkularPipeline<?, ?> query, Related<? extends Entity> related) {
         query.remember();
 
+        if (related.isTransitive()) {
+            //the filter is evaluated for each entity separately, so the visited entities of the previous one must not
+            //prune the traversal from the next one
+            Set<Object> visited = new HashSet<>();
+            query.sideEffect(e -> {
+                visited.clear();
+                return null;
+            });
+
+            goTransitively(query, related, visited);
+        } else {
+            goToRelated(query, related);
+        }
+
+        if (related.getEntity() != null) {
+            Constants.Type desiredType = Constants.Type.of(related.getEntity());
+
+            query.hasType(desiredType).hasUid(related.getEntity().getId());
+        }
+
+        query.recall();
+    }
+
+    protected static void goToRelated(HawkularPipeline<?, ?> query, Related<? extends Entity> related) {
         switch (related.getEntityRole()) {
             case TARGET:
                 if (null != related.getRelationshipName()) {
@@ -64,16 +93,62 @@ class FilterVisitor {
                     query.bothE().hasUid(related.getRelationshipId()).bothV();
                 }
         }
+    }
 
-        if (related.getEntity() != null) {
-            Constants.Type desiredType = Constants.Type.of(related.getEntity());
+    /**
+     * Follows the relationships of the filter in a loop bounded by the max depth of the filter. If the filter
+     * deduplicates, the traversal doesn't continue from (and doesn't emit) the vertices that are already in the
+     * visited set.
+     *
+     * @param query the query to append the loop to
+     * @param related the transitive filter
+     * @param visited the set of ids of the visited vertices
+     */
+    protected static void goTransitively(HawkularPipeline<?, ?> query, Related<? extends Entity> related,
+                                         Set<Object> visited) {
+        int maxDepth = related.getMaxDepth();
 
-            query.hasType(desiredType).hasUid(related.getEntity().getId());
+        query.startLoop();
+
+        switch (related.getEntityRole()) {
+            case TARGET:
+                query.in(related.getRelationshipName());
+                break;
+            case SOURCE:
+                query.out(related.getRelationshipName());
+                break;
+            case ANY:
+                query.both(related.getRelationshipName());
+        }
+
+        if (related.isDedup()) {
+            query.filter(v -> visited.add(((Element) v).getId()));
         }
 
+        //the loop counter starts at 1, so it is n + 1 after the n-th traversal of the relationship
+        query.endLoop(l -> maxDepth <= 0 || l.getLoops() <= maxDepth, l -> true);
+    }
+
+    public void visit(HawkularPipeline<?, ?> query, RelatedOfTypeFilter related) {
+        query.remember();
+
+        goToTargetsOfType(query, related);
+
         query.recall();
     }
 
+    protected static void goToTargetsOfType(HawkularPipeline<?, ?> query, RelatedOfTypeFilter related) {
+        //the edges are indexed by the target type, so this doesn't need to go through all of the edges
+        query.outE(related.getRelationship().name())
+                .has(Constants.Property.targetType.name(), Constants.Type.of(related.getTargetType()).name())
+                .inV();
+    }
+
+    public void visit(HawkularPipeline<?, ?> query, IndexedCandidatesFilter filter) {
+        Set<Object> ids = filter.getCandidateIds().get();
+        query.filter(v -> ids.contains(((Element) v).getId()));
+    }
+
     @SuppressWarnings("unchecked")
     public void visit(HawkularPipeline<?, ?> query, With.Ids ids) {
         if (ids.getIds().length == 1) {
@@ -138,6 +213,114 @@ class FilterVisitor {
         query.or(idChecks);
     }
 
+    public void visit(HawkularPipeline<?, ?> query, With.PropertyValues filter) {
+        visit(query, filter.getProperty(), filter.getOperator(), filter.getValues());
+    }
+
+    public void visit(HawkularPipeline<?, ?> query, RelationWith.PropertyValues filter) {
+        visit(query, filter.getProperty(), filter.getOperator(), filter.getValues());
+    }
+
+    /**
+     * The equality operators are applied as {@code has()} steps, so that the graph database can use an index to
+     * evaluate them, if there is one. The rest is evaluated in the pipeline. The comparisons skip the elements with
+     * values that are not comparable with the values of the filter instead of failing on them, see
+     * {@link #compare(Object, Object)}.
+     */
+    private void visit(HawkularPipeline<?, ?> query, String property, PropertyOperator operator, Object[] values) {
+        switch (operator) {
+            case EQUAL:
+                query.has(property, values[0]);
+                break;
+            case NOT_EQUAL:
+                query.has(property, Compare.NOT_EQUAL, values[0]);
+                break;
+            case GREATER_THAN:
+                filterCompared(query, property, values[0], c -> c > 0);
+                break;
+            case GREATER_THAN_EQUAL:
+                filterCompared(query, property, values[0], c -> c >= 0);
+                break;
+            case LESS_THAN:
+                filterCompared(query, property, values[0], c -> c < 0);
+                break;
+            case LESS_THAN_EQUAL:
+                filterCompared(query, property, values[0], c -> c <= 0);
+                break;
+            case RANGE:
+                Object from = values[0];
+                Object to = values[1];
+                query.filter(e -> {
+                    Object value = ((Element) e).getProperty(property);
+                    Integer cFrom = compare(value, from);
+                    Integer cTo = compare(value, to);
+                    return cFrom != null && cTo != null && cFrom >= 0 && cTo < 0;
+                });
+                break;
+            case IN:
+                query.has(property, Contains.IN, Arrays.asList(values));
+                break;
+            case PREFIX:
+                String prefix = (String) values[0];
+                query.filter(e -> {
+                    Object value = ((Element) e).getProperty(property);
+                    return value instanceof String && ((String) value).startsWith(prefix);
+                });
+                break;
+            case EXISTS:
+                query.has(property);
+                break;
+        }
+    }
+
+    private static void filterCompared(HawkularPipeline<?, ?> query, String property, Object filterValue,
+            IntPredicate test) {
+        query.filter(e -> {
+            Integer c = compare(((Element) e).getProperty(property), filterValue);
+            return c != null && test.test(c);
+        });
+    }
+
+    /**
+     * Compares the value of a property with the value of a filter. The numbers are compared by their values
+     * regardless of their types, the other values only if they are comparable with each other.
+     *
+     * @param value       the value of the property, possibly null
+     * @param filterValue the value from the filter
+     * @return the result of the comparison or null if the values are not comparable
+     */
+    @SuppressWarnings("unchecked")
+    static Integer compare(Object value, Object filterValue) {
+        if (value == null || filterValue == null) {
+            return null;
+        }
+
+        if (value instanceof Number && filterValue instanceof Number) {
+            Number a = (Number) value;
+            Number b = (Number) filterValue;
+            if (isIntegral(a) && isIntegral(b)) {
+                return Long.compare(a.longValue(), b.longValue());
+            } else {
+                return Double.compare(a.doubleValue(), b.doubleValue());
+            }
+        }
+
+        if (!(value instanceof Comparable) || !(value.getClass().isInstance(filterValue)
+                || filterValue.getClass().isInstance(value))) {
+            return null;
+        }
+
+        try {
+            return ((Comparable<Object>) value).compareTo(filterValue);
+        } catch (ClassCastException e) {
+            return null;
+        }
+    }
+
+    private static boolean isIntegral(Number n) {
+        return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte;
+    }
+
     public void visit(HawkularPipeline<?, ?> query, RelationWith.SourceOfType types) {
         visit(query, types, true);
     }
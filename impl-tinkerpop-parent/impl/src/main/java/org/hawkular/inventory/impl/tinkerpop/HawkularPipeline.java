@@ -17,6 +17,7 @@
 
 package org.hawkular.inventory.impl.tinkerpop;
 
+import com.tinkerpop.blueprints.Contains;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Graph;
@@ -89,6 +90,31 @@ final class HawkularPipeline<S, E> extends GremlinPipeline<S, E> implements Clon
         return back(labelStack.pop());
     }
 
+    /**
+     * Together with {@link #endLoop(PipeFunction, PipeFunction)}, this is a simpler replacement of the
+     * {@link #as(String)} and {@link #loop(String, PipeFunction, PipeFunction)} pair.
+     *
+     * <p>This shares the stack of labels with {@link #remember()} and {@link #recall()} so the calls can be nested
+     * with each other.
+     *
+     * @return the pipeline marking the current step as the start of a loop
+     */
+    public HawkularPipeline<S, E> startLoop() {
+        return remember();
+    }
+
+    /**
+     * Loops back to the step marked by the last call to {@link #startLoop()}.
+     *
+     * @param whileFunction whether to continue looping with the object
+     * @param emitFunction whether to emit the object
+     * @return the pipeline emitting the objects of the loop
+     */
+    public HawkularPipeline<S, E> endLoop(PipeFunction<LoopPipe.LoopBundle<E>, Boolean> whileFunction,
+                                          PipeFunction<LoopPipe.LoopBundle<E>, Boolean> emitFunction) {
+        return loop(labelStack.pop(), whileFunction, emitFunction);
+    }
+
     @SuppressWarnings("unchecked")
     public HawkularPipeline<S, Vertex> hasType(Constants.Type type) {
         return (HawkularPipeline<S, Vertex>) has(Constants.Property.type.name(), type.name());
@@ -98,6 +124,10 @@ final class HawkularPipeline<S, E> extends GremlinPipeline<S, E> implements Clon
         return cast(has(Constants.Property.uid.name(), uid));
     }
 
+    public HawkularPipeline<S, ? extends Element> hasUids(Collection<String> uids) {
+        return cast(has(Constants.Property.uid.name(), Contains.IN, uids));
+    }
+
     public HawkularPipeline<S, Vertex> out(Relationships.WellKnown... rel) {
         String[] srels = new String[rel.length];
         Arrays.setAll(srels, i -> rel[i].name());
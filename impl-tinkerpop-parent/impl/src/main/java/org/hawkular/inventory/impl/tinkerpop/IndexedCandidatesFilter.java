@@ -0,0 +1,68 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import org.hawkular.inventory.api.filters.Filter;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Filter used internally by the impl in place of the property filters that can be evaluated using a property index
+ * and the transitive filters on the relationships with a given entity. The ids of the matching vertices are looked up
+ * in the index, or found by a single traversal from the entity, when the query is being built. If the path to the
+ * vertices only goes down the "contains" tree, the traversal starts from the found vertices and checks the path
+ * backwards (see {@link AbstractGraphService#source(FilterApplicator[])}). Otherwise the traversal only checks that the
+ * vertices it reaches are among them, which doesn't require loading the properties of each vertex.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class IndexedCandidatesFilter extends Filter {
+    private final Filter original;
+    private final Supplier<Set<Object>> candidateIds;
+
+    /**
+     * @param original     the filter this filter replaces or null if there is no API filter equivalent to it, like
+     *                     for the full-text searches
+     * @param candidateIds the supplier of the ids of the vertices to keep
+     */
+    IndexedCandidatesFilter(Filter original, Supplier<Set<Object>> candidateIds) {
+        this.original = original;
+        this.candidateIds = candidateIds;
+    }
+
+    /**
+     * @return the filter this filter was created from or null if there is none
+     */
+    public Filter getOriginal() {
+        return original;
+    }
+
+    /**
+     * @return the supplier of the ids of the vertices found in the index. The supplier looks them up each time it is
+     * called.
+     */
+    public Supplier<Set<Object>> getCandidateIds() {
+        return candidateIds;
+    }
+
+    @Override
+    public String toString() {
+        return "IndexedCandidates[" + (original == null ? "search" : original) + "]";
+    }
+}
@@ -19,6 +19,15 @@ package org.hawkular.inventory.impl.tinkerpop;
 
 import com.tinkerpop.blueprints.TransactionalGraph;
 import org.hawkular.inventory.api.FeedIdStrategy;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.PropertyIndex;
+import org.hawkular.inventory.impl.tinkerpop.spi.Capabilities;
+import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
+import org.hawkular.inventory.impl.tinkerpop.spi.LockProvider;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Data needed by various services. Mostly coming from configuration.
@@ -31,11 +40,32 @@ final class InventoryContext {
     private final FeedIdStrategy feedIdStrategy;
     private final TransactionalGraph graph;
     private final InventoryService inventory;
+    private final GraphProvider<TransactionalGraph> graphProvider;
+    private final Set<String> searchableProperties;
+    private final Capabilities capabilities;
+    private final LockProvider lockProvider;
+    private final EntityCache entityCache;
+    private final MissingEntityCache missingEntityCache;
+    private final QueryResultCache queryResultCache;
+    private final TypeDefinitions typeDefinitions = new TypeDefinitions();
+    private final Set<PropertyIndex> propertyIndexes = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final ThreadLocal<TransactionalGraph> transaction = new ThreadLocal<>();
 
-    public InventoryContext(InventoryService inventory, FeedIdStrategy feedIdStrategy, TransactionalGraph graph) {
+    public InventoryContext(InventoryService inventory, FeedIdStrategy feedIdStrategy, TransactionalGraph graph,
+                            GraphProvider<TransactionalGraph> graphProvider, Capabilities capabilities,
+                            LockProvider lockProvider, EntityCache entityCache,
+                            MissingEntityCache missingEntityCache, QueryResultCache queryResultCache,
+                            Set<String> searchableProperties) {
         this.inventory = inventory;
         this.feedIdStrategy = feedIdStrategy;
         this.graph = graph;
+        this.graphProvider = graphProvider;
+        this.capabilities = capabilities;
+        this.lockProvider = lockProvider;
+        this.entityCache = entityCache;
+        this.missingEntityCache = missingEntityCache;
+        this.queryResultCache = queryResultCache;
+        this.searchableProperties = searchableProperties;
     }
 
     public InventoryService getInventory() {
@@ -46,7 +76,87 @@ final class InventoryContext {
         return feedIdStrategy;
     }
 
+    /**
+     * @return the transaction of the unit of work running in the current thread or the graph itself if there is
+     * no such transaction
+     */
     public TransactionalGraph getGraph() {
+        TransactionalGraph tx = transaction.get();
+        return tx == null ? graph : tx;
+    }
+
+    /**
+     * @return the graph itself regardless of the transaction of the unit of work running in the current thread. This
+     * is what the methods of the {@link GraphProvider} expect, because the transactions of some graphs (like Titan) are
+     * not of the same type as the graph.
+     */
+    TransactionalGraph getBaseGraph() {
         return graph;
     }
+
+    /**
+     * Binds the transaction to the current thread so that it is returned from {@link #getGraph()}.
+     *
+     * @param tx the transaction or null to unbind the current one
+     */
+    void setTransaction(TransactionalGraph tx) {
+        if (tx == null) {
+            transaction.remove();
+        } else {
+            transaction.set(tx);
+        }
+    }
+
+    /**
+     * @return the transaction bound to the current thread or null if there is none
+     */
+    TransactionalGraph getTransaction() {
+        return transaction.get();
+    }
+
+    public GraphProvider<TransactionalGraph> getGraphProvider() {
+        return graphProvider;
+    }
+
+    public Capabilities getCapabilities() {
+        return capabilities;
+    }
+
+    public LockProvider getLockProvider() {
+        return lockProvider;
+    }
+
+    public EntityCache getEntityCache() {
+        return entityCache;
+    }
+
+    MissingEntityCache getMissingEntityCache() {
+        return missingEntityCache;
+    }
+
+    QueryResultCache getQueryResultCache() {
+        return queryResultCache;
+    }
+
+    TypeDefinitions getTypeDefinitions() {
+        return typeDefinitions;
+    }
+
+    /**
+     * @return the properties (other than the id) in the mixed indices that the entities can be searched by
+     */
+    public Set<String> getSearchableProperties() {
+        return searchableProperties;
+    }
+
+    /**
+     * @return the (modifiable) set of the declared property indices
+     */
+    public Set<PropertyIndex> getPropertyIndexes() {
+        return propertyIndexes;
+    }
+
+    public boolean isIndexed(Class<? extends Entity> entityType, String property) {
+        return propertyIndexes.contains(new PropertyIndex(entityType, property));
+    }
 }
@@ -16,22 +16,76 @@
  */
 package org.hawkular.inventory.impl.tinkerpop;
 
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.TransactionalGraph;
 import com.tinkerpop.blueprints.Vertex;
 import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.PropertyIndexes;
 import org.hawkular.inventory.api.Tenants;
+import org.hawkular.inventory.impl.tinkerpop.spi.Capabilities;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
+import org.hawkular.inventory.impl.tinkerpop.spi.LockProvider;
+import org.hawkular.inventory.impl.tinkerpop.spi.VertexCentricIndexSpec;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.Set;
 
 /**
  * @author Lukas Krejci
  * @since 1.0
  */
 public final class InventoryService implements Inventory {
+    /**
+     * The maximum number of entities to keep in the entity cache. The cache is disabled if this is not set or is 0.
+     */
+    public static final String ENTITY_CACHE_SIZE_PROPERTY = "hawkular.inventory.cache.entities.size";
+
+    /**
+     * The number of milliseconds after which the entries in the entity cache expire. Defaults to 1 minute.
+     */
+    public static final String ENTITY_CACHE_TTL_PROPERTY = "hawkular.inventory.cache.entities.ttl";
+
+    /**
+     * The maximum number of the paths recently found not to lead to any entity to remember. The cache of such paths
+     * is disabled if this is not set or is 0.
+     */
+    public static final String MISSING_ENTITY_CACHE_SIZE_PROPERTY = "hawkular.inventory.cache.missing.size";
+
+    /**
+     * The number of milliseconds after which the entries in the cache of the missing entities expire. Defaults to
+     * 10 seconds.
+     */
+    public static final String MISSING_ENTITY_CACHE_TTL_PROPERTY = "hawkular.inventory.cache.missing.ttl";
+
+    /**
+     * The maximum total number of entities in the cached results of the queries for multiple entities. The cache of
+     * the query results is disabled if this is not set or is 0.
+     */
+    public static final String QUERY_RESULT_CACHE_WEIGHT_PROPERTY = "hawkular.inventory.cache.results.weight";
+
+    /**
+     * The number of milliseconds after which the cached query results expire. Defaults to 1 minute.
+     */
+    public static final String QUERY_RESULT_CACHE_TTL_PROPERTY = "hawkular.inventory.cache.results.ttl";
+
+    /**
+     * The comma-separated names of the entity properties that {@link org.hawkular.inventory.api.ReadInterface#search}
+     * looks into, besides the ids. The properties are added to the mixed index if the graph supports it.
+     */
+    public static final String SEARCHABLE_PROPERTIES_PROPERTY = "hawkular.inventory.search.properties";
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
     private InventoryContext context;
+    private final ThreadLocal<Boolean> unitOfWork = new ThreadLocal<>();
 
     @Override
     @SuppressWarnings("unchecked")
@@ -39,17 +93,209 @@ public final class InventoryService implements Inventory {
         GraphProvider gp = ServiceLoader.load(GraphProvider.class).iterator().next();
 
         TransactionalGraph graph = gp.instantiateGraph(configuration);
+        Capabilities capabilities = gp.getCapabilities(graph);
+
+        Map<String, String> implConfig = configuration.getImplementationConfiguration();
+        Set<String> searchableProperties = parseSearchableProperties(
+                implConfig.getOrDefault(SEARCHABLE_PROPERTIES_PROPERTY, ""));
+
+        List<IndexSpec> indices = new ArrayList<>();
+        indices.add(IndexSpec.builder()
+                .withElementType(Vertex.class)
+                .withProperty(Constants.Property.type.name(), String.class)
+                .withProperty(Constants.Property.uid.name(), String.class).build());
+        indices.add(IndexSpec.builder()
+                .withElementType(Vertex.class)
+                .withProperty(Constants.Property.type.name(), String.class).build());
+        indices.add(IndexSpec.builder()
+                .withElementType(Edge.class)
+                .withProperty(Constants.Property.uid.name(), String.class).build());
 
-        gp.ensureIndices(graph,
-                IndexSpec.builder()
-                        .withElementType(Vertex.class)
-                        .withProperty(Constants.Property.type.name(), String.class)
-                        .withProperty(Constants.Property.uid.name(), String.class).build(),
-                IndexSpec.builder()
-                        .withElementType(Vertex.class)
-                        .withProperty(Constants.Property.type.name(), String.class).build());
+        //the searches by the id prefixes and in the searchable properties are served by the mixed index
+        if (capabilities.isMixedIndices()) {
+            IndexSpec.Builder mixed = IndexSpec.builder()
+                    .withElementType(Vertex.class)
+                    .withProperty(Constants.Property.type.name(), String.class)
+                    .withProperty(Constants.Property.uid.name(), String.class)
+                    .withProperty(Constants.Property.tenantUid.name(), String.class)
+                    .withMixed(true);
 
-        context = new InventoryContext(this, configuration.getFeedIdStrategy(), graph);
+            searchableProperties.forEach(p -> mixed.withProperty(p, String.class));
+
+            indices.add(mixed.build());
+        }
+
+        gp.ensureIndices(graph, indices.toArray(new IndexSpec[indices.size()]));
+
+        //the well-known relationships can be very numerous on a single vertex (think environment containing all its
+        //resources and metrics), so make it possible to look them up by id or by the type of the target without
+        //iterating over all of them
+        if (capabilities.isVertexCentricIndices()) {
+            List<VertexCentricIndexSpec> vcIndices = new ArrayList<>();
+            for (Constants.Relationship rel : Constants.Relationship.values()) {
+                vcIndices.add(VertexCentricIndexSpec.builder()
+                        .withEdgeLabel(rel.name())
+                        .withDirection(Direction.BOTH)
+                        .withProperty(Constants.Property.uid.name(), String.class).build());
+
+                vcIndices.add(VertexCentricIndexSpec.builder()
+                        .withEdgeLabel(rel.name())
+                        .withDirection(Direction.OUT)
+                        .withProperty(Constants.Property.targetType.name(), String.class).build());
+            }
+
+            gp.ensureVertexCentricIndices(graph, vcIndices.toArray(new VertexCentricIndexSpec[vcIndices.size()]));
+        }
+
+        fillEdgeTargetTypes(graph);
+        fillVertexTenantUids(graph);
+
+        Iterator<LockProvider> lockProviders = ServiceLoader.load(LockProvider.class).iterator();
+        LockProvider lockProvider = lockProviders.hasNext() ? lockProviders.next() : new StripedLockProvider();
+
+        EntityCache entityCache = new EntityCache(
+                Integer.parseInt(implConfig.getOrDefault(ENTITY_CACHE_SIZE_PROPERTY, "0")),
+                Long.parseLong(implConfig.getOrDefault(ENTITY_CACHE_TTL_PROPERTY, "60000")));
+
+        MissingEntityCache missingEntityCache = new MissingEntityCache(
+                Integer.parseInt(implConfig.getOrDefault(MISSING_ENTITY_CACHE_SIZE_PROPERTY, "0")),
+                Long.parseLong(implConfig.getOrDefault(MISSING_ENTITY_CACHE_TTL_PROPERTY, "10000")));
+
+        QueryResultCache queryResultCache = new QueryResultCache(
+                Long.parseLong(implConfig.getOrDefault(QUERY_RESULT_CACHE_WEIGHT_PROPERTY, "0")),
+                Long.parseLong(implConfig.getOrDefault(QUERY_RESULT_CACHE_TTL_PROPERTY, "60000")));
+
+        context = new InventoryContext(this, configuration.getFeedIdStrategy(), graph, gp, capabilities,
+                lockProvider, entityCache, missingEntityCache, queryResultCache, searchableProperties);
+
+        new PropertyIndexesService(context).loadDeclaredIndices();
+    }
+
+    private static Set<String> parseSearchableProperties(String value) {
+        Set<String> ret = new HashSet<>();
+        for (String p : value.split(",")) {
+            p = p.trim();
+            if (p.isEmpty()) {
+                continue;
+            }
+
+            for (Constants.Property reserved : Constants.Property.values()) {
+                if (reserved.name().equals(p)) {
+                    throw new IllegalArgumentException("Property '" + p + "' is reserved. It cannot be searched in.");
+                }
+            }
+
+            ret.add(p);
+        }
+
+        return ret;
+    }
+
+    /**
+     * The edges created before the {@code targetType} property was introduced don't have it and so would never be
+     * found by the {@link RelatedOfTypeFilter}s. This fills the property in. That is done just once, the completion
+     * is remembered in the metadata vertex so that the later starts don't need to go through all the edges again.
+     */
+    private static void fillEdgeTargetTypes(TransactionalGraph graph) {
+        Vertex md = getMetadata(graph);
+        if (md != null && Boolean.TRUE.equals(md.getProperty(Constants.Property.edgeTargetTypes.name()))) {
+            return;
+        }
+
+        try {
+            //the edges are updated in small transactions, which would invalidate the iteration over them on some graphs
+            List<Object> missing = new ArrayList<>();
+            for (Edge e : graph.getEdges()) {
+                if (e.getProperty(Constants.Property.targetType.name()) == null) {
+                    missing.add(e.getId());
+                }
+            }
+
+            int inBatch = 0;
+            for (Object id : missing) {
+                Edge e = graph.getEdge(id);
+                if (e != null) {
+                    e.setProperty(Constants.Property.targetType.name(),
+                            AbstractGraphService.getType(e.getVertex(Direction.IN)));
+                }
+
+                if (++inBatch == BACKFILL_BATCH_SIZE) {
+                    graph.commit();
+                    inBatch = 0;
+                }
+            }
+
+            markFilled(graph, md, Constants.Property.edgeTargetTypes);
+        } catch (RuntimeException e) {
+            graph.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * The entity vertices created before the {@code tenantUid} property was introduced don't have it and so would
+     * never be found by the index lookups restricted to their tenant. This fills the property in, once, like
+     * {@link #fillEdgeTargetTypes(TransactionalGraph)}.
+     */
+    private static void fillVertexTenantUids(TransactionalGraph graph) {
+        Vertex md = getMetadata(graph);
+        if (md != null && Boolean.TRUE.equals(md.getProperty(Constants.Property.vertexTenantUids.name()))) {
+            return;
+        }
+
+        try {
+            List<Object> missing = new ArrayList<>();
+            for (Vertex v : graph.getVertices()) {
+                String type = AbstractGraphService.getType(v);
+                if (type != null && !Constants.NON_ENTITY_TYPES.contains(type)
+                        && v.getProperty(Constants.Property.tenantUid.name()) == null) {
+                    missing.add(v.getId());
+                }
+            }
+
+            int inBatch = 0;
+            for (Object id : missing) {
+                Vertex v = graph.getVertex(id);
+                if (v != null) {
+                    Vertex tenant = AbstractGraphService.getTenantVertexOf(v);
+                    v.setProperty(Constants.Property.tenantUid.name(),
+                            AbstractGraphService.getUid(tenant == null ? v : tenant));
+                }
+
+                if (++inBatch == BACKFILL_BATCH_SIZE) {
+                    graph.commit();
+                    inBatch = 0;
+                }
+            }
+
+            markFilled(graph, md, Constants.Property.vertexTenantUids);
+        } catch (RuntimeException e) {
+            graph.rollback();
+            throw e;
+        }
+    }
+
+    private static Vertex getMetadata(TransactionalGraph graph) {
+        Iterator<Vertex> metadata = graph.query().has(Constants.Property.type.name(), Constants.METADATA_TYPE)
+                .vertices().iterator();
+        return metadata.hasNext() ? metadata.next() : null;
+    }
+
+    private static void markFilled(TransactionalGraph graph, Vertex metadata, Constants.Property flag) {
+        Vertex md = metadata;
+        if (md == null) {
+            //another instance starting at the same time might have created it in the meantime
+            md = getMetadata(graph);
+        }
+
+        if (md == null) {
+            md = graph.addVertex(null);
+            md.setProperty(Constants.Property.type.name(), Constants.METADATA_TYPE);
+        }
+
+        md.setProperty(flag.name(), true);
+
+        graph.commit();
     }
 
     @Override
@@ -57,6 +303,79 @@ public final class InventoryService implements Inventory {
         return new TenantsService(context);
     }
 
+    @Override
+    public PropertyIndexes propertyIndexes() {
+        return new PropertyIndexesService(context);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>A read-only unit of work runs in its own read-only transaction if the graph supports threaded
+     * transactions, so that the concurrent reads don't interfere with each other or with the writes. Otherwise the
+     * unit of work uses the transaction bound to the thread by the graph itself and the services commit their changes
+     * as usual.
+     *
+     * <p>If the previous unit of work in the current thread was not ended (e.g. because an error skipped the code that
+     * should have ended it), it is ended (i.e. rolled back) first, so that the thread is usable again.
+     */
+    @Override
+    public void beginUnitOfWork(boolean readOnly) {
+        if (unitOfWork.get() != null) {
+            Log.LOG.wStaleUnitOfWork();
+            endUnitOfWork();
+        }
+
+        unitOfWork.set(true);
+
+        if (readOnly && context.getCapabilities().isThreadedTransactions()) {
+            context.setTransaction(context.getGraphProvider().startTransaction(context.getBaseGraph(), true));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Any changes that the services didn't commit are rolled back, which also closes the transaction bound to the
+     * thread, so that the next unit of work running in the thread doesn't see stale data.
+     */
+    @Override
+    public void endUnitOfWork() {
+        unitOfWork.remove();
+
+        TransactionalGraph tx = context.getTransaction();
+        context.setTransaction(null);
+
+        try {
+            if (tx != null) {
+                tx.rollback();
+            }
+        } finally {
+            context.getGraph().rollback();
+        }
+    }
+
+    /**
+     * @return the statistics of the entity cache
+     */
+    public CacheStatistics getEntityCacheStatistics() {
+        return context.getEntityCache().getStatistics();
+    }
+
+    /**
+     * @return the statistics of the cache of the paths recently found not to lead to any entity
+     */
+    public CacheStatistics getMissingEntityCacheStatistics() {
+        return context.getMissingEntityCache().getStatistics();
+    }
+
+    /**
+     * @return the statistics of the cache of the query results
+     */
+    public CacheStatistics getQueryResultCacheStatistics() {
+        return context.getQueryResultCache().getStatistics();
+    }
+
     @Override
     public void close() throws Exception {
         context.getGraph().shutdown();
@@ -41,4 +41,8 @@ interface Log {
     @Message(id = 1001, value = "No Topic Connection found (is 'java:/topic/HawkularNotifications' bound?), not " +
             "sending")
     void wNoTopicConnection();
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 1002, value = "The previous unit of work in the thread was not ended. Rolling it back.")
+    void wStaleUnitOfWork();
 }
@@ -24,6 +24,9 @@ import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.api.model.Tenant;
 
+import java.util.Collection;
+import java.util.Set;
+
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 import static org.hawkular.inventory.api.Relationships.WellKnown.owns;
 import static org.hawkular.inventory.impl.tinkerpop.Constants.Type.metricType;
@@ -47,7 +50,7 @@ final class MetricTypesService
         Vertex tnt = null;
         //connect to tenants in the source
         for (Vertex t : source().hasType(tenant)) {
-            t.addEdge(contains.name(), newEntity);
+            addEdge(t, contains.name(), newEntity);
             tnt = t;
         }
 
@@ -91,4 +94,16 @@ final class MetricTypesService
     public void remove(String id) {
         removeRelationship(resourceType, owns, id);
     }
+
+    @Override
+    public Set<String> add(Collection<String> ids) {
+        Iterable<Vertex> vs = source().in(contains).out(contains).hasType(metricType).hasUids(ids).cast(Vertex.class);
+
+        return addRelationships(resourceType, owns, ids, vs);
+    }
+
+    @Override
+    public Set<String> remove(Collection<String> ids) {
+        return removeRelationships(resourceType, owns, ids);
+    }
 }
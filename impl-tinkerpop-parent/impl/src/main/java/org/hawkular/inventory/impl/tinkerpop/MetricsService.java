@@ -27,7 +27,9 @@ import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.Tenant;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
 import static org.hawkular.inventory.api.Relationships.WellKnown.owns;
@@ -55,20 +57,14 @@ final class MetricsService
 
         //connect to all environments in the source
         for (Vertex e : source().hasType(environment)) {
-            e.addEdge(contains.name(), newEntity);
+            addEdge(e, contains.name(), newEntity);
             envs.add(e);
             exampleEnv = e;
         }
 
         //connect to the metric def in the blueprint
-        HawkularPipeline<?, Vertex> mds = new HawkularPipeline<>(envs) //from environments we're in
-                .in(contains) //up to tenants
-                .out(contains).hasType(metricType) //down to metric defs
-                .hasUid(blueprint.getType().getId()) //filter on our id
-                .cast(Vertex.class);
-
-        for (Vertex md : mds) {
-            md.addEdge(Relationships.WellKnown.defines.name(), newEntity);
+        for (Vertex md : getDefinitionVertices(envs, metricType, blueprint.getType().getId())) {
+            addEdge(md, Relationships.WellKnown.defines.name(), newEntity);
         }
 
         Vertex tenant = getTenantVertexOf(exampleEnv);
@@ -107,4 +103,16 @@ final class MetricsService
     public void remove(String id) {
         removeRelationship(resource, owns, id);
     }
+
+    @Override
+    public Set<String> add(Collection<String> ids) {
+        Iterable<Vertex> vs = source().in(contains).out(contains).hasType(metric).hasUids(ids).cast(Vertex.class);
+
+        return addRelationships(resource, owns, ids, vs);
+    }
+
+    @Override
+    public Set<String> remove(Collection<String> ids) {
+        return removeRelationships(resource, owns, ids);
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import org.hawkular.inventory.api.filters.With;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A cache of the paths that were recently found not to lead to any entity.
+ *
+ * <p>The paths are keyed the same way as in the {@link EntityCache}. A creation of an entity invalidates all the
+ * cached paths that end with the id of the new entity, which covers the paths through its parent as well as any
+ * other path the entity can be reached by. The new relationships can make new paths to the existing entities, so
+ * they invalidate the whole cache. Deletes and updates can't make a missing entity appear and leave the cache intact.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class MissingEntityCache {
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<String, Set<String>> keysById = new HashMap<>();
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxSize   the maximum number of the cached paths, 0 disables the cache
+     * @param ttlMillis the number of milliseconds after which the cached paths expire
+     */
+    MissingEntityCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > MissingEntityCache.this.maxSize) {
+                    removeId(eldest.getKey(), eldest.getValue());
+                    evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @param key the key of the path as returned from {@link EntityCache#keyOf(FilterApplicator[])}
+     * @return true if the path is known not to lead to any entity
+     */
+    synchronized boolean isMissing(String key) {
+        Entry e = entries.get(key);
+
+        if (e != null && e.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            removeId(key, e);
+            evictions++;
+            e = null;
+        }
+
+        if (e == null) {
+            misses++;
+            return false;
+        }
+
+        hits++;
+        return true;
+    }
+
+    /**
+     * Remembers that the path doesn't lead to any entity unless the cache was invalidated since the provided
+     * generation.
+     *
+     * @param key        the key of the path as returned from {@link EntityCache#keyOf(FilterApplicator[])}
+     * @param path       the path itself
+     * @param generation the generation of the cache at the time the path started to be looked up in the graph
+     */
+    synchronized void putMissing(String key, FilterApplicator<?>[] path, long generation) {
+        if (generation != this.generation) {
+            return;
+        }
+
+        //the key is only ever produced for the paths ending with a single id
+        String id = ((With.Ids) path[path.length - 1].filter).getIds()[0];
+
+        Entry old = entries.put(key, new Entry(id, System.currentTimeMillis() + ttlMillis));
+        if (old != null) {
+            removeId(key, old);
+        }
+
+        keysById.computeIfAbsent(id, k -> new HashSet<>()).add(key);
+    }
+
+    /**
+     * Invalidates all the paths leading to the entities with the provided id.
+     *
+     * @param id the id of a newly created entity
+     */
+    synchronized void invalidate(String id) {
+        generation++;
+
+        Set<String> keys = keysById.remove(id);
+        if (keys != null) {
+            keys.forEach(entries::remove);
+        }
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        keysById.clear();
+    }
+
+    synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits, misses, evictions, entries.size());
+    }
+
+    private void removeId(String key, Entry entry) {
+        Set<String> keys = keysById.get(entry.id);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysById.remove(entry.id);
+            }
+        }
+    }
+
+    private static final class Entry {
+        final String id;
+        final long expiresAt;
+
+        Entry(String id, long expiresAt) {
+            this.id = id;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
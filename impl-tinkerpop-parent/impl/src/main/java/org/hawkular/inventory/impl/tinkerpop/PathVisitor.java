@@ -20,6 +20,8 @@ package org.hawkular.inventory.impl.tinkerpop;
 import org.hawkular.inventory.api.filters.Related;
 import org.hawkular.inventory.api.model.Entity;
 
+import java.util.HashSet;
+
 /**
  * @author Lukas Krejci
  * @since 1.0
@@ -27,33 +29,10 @@ import org.hawkular.inventory.api.model.Entity;
 class PathVisitor extends FilterVisitor {
     @Override
     public void visit(HawkularPipeline<?, ?> query, Related<? extends Entity> related) {
-        switch (related.getEntityRole()) {
-            case TARGET:
-                if (null != related.getRelationshipName()) {
-                    query.in(related.getRelationshipName());
-                }
-                if (null != related.getRelationshipId()) {
-                    // TODO test
-                    query.inE().hasUid(related.getRelationshipId()).inV();
-                }
-                break;
-            case SOURCE:
-                if (null != related.getRelationshipName()) {
-                    query.out(related.getRelationshipName());
-                }
-                if (null != related.getRelationshipId()) {
-                    // TODO test
-                    query.outE().hasUid(related.getRelationshipId()).outV();
-                }
-                break;
-            case ANY:
-                if (null != related.getRelationshipName()) {
-                    query.both(related.getRelationshipName());
-                }
-                if (null != related.getRelationshipId()) {
-                    // TODO test
-                    query.bothE().hasUid(related.getRelationshipId()).bothV();
-                }
+        if (related.isTransitive()) {
+            goTransitively(query, related, new HashSet<>());
+        } else {
+            goToRelated(query, related);
         }
 
         if (related.getEntity() != null) {
@@ -62,4 +41,9 @@ class PathVisitor extends FilterVisitor {
             query.hasType(desiredType).hasUid(related.getEntity().getId());
         }
     }
+
+    @Override
+    public void visit(HawkularPipeline<?, ?> query, RelatedOfTypeFilter related) {
+        goToTargetsOfType(query, related);
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Vertex;
+import org.hawkular.inventory.api.PropertyIndexes;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.PropertyIndex;
+import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * The declarations of the property indices are stored in the graph as standalone vertices so that they survive
+ * restarts. The indices themselves are managed by the graph provider.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class PropertyIndexesService implements PropertyIndexes {
+
+    private final InventoryContext context;
+
+    PropertyIndexesService(InventoryContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public void create(PropertyIndex index) {
+        if (null == index) {
+            throw new IllegalArgumentException("index was null");
+        }
+
+        Constants.Type type = Constants.Type.of(index.getEntityType());
+        if (Arrays.asList(type.getMappedProperties()).contains(index.getProperty())) {
+            throw new IllegalArgumentException("Property '" + index.getProperty() + "' is reserved. Cannot index it.");
+        }
+
+        //the declarations of the indices on the same property need to be checked and created atomically and the
+        //declarations in the graph (not the ones cached in the context) are the source of truth here
+        Lock lock = context.getLockProvider().getLock(Constants.PROPERTY_INDEX_TYPE + "/" + index.getProperty());
+
+        lock.lock();
+        try {
+            //the indices on the same property share the key in the graph, which has just a single value type
+            for (Vertex declaration : getDeclarations()) {
+                PropertyIndex existing = toIndex(declaration);
+                if (!existing.getProperty().equals(index.getProperty())) {
+                    continue;
+                }
+
+                if (existing.equals(index)) {
+                    context.getPropertyIndexes().add(index);
+                    return;
+                }
+
+                if (!existing.getValueType().equals(index.getValueType())) {
+                    throw new IllegalArgumentException("Property '" + index.getProperty() + "' is already indexed " +
+                            "with the value type " + existing.getValueType().getName() + ".");
+                }
+            }
+
+            ensureIndex(index);
+
+            try {
+                Vertex v = context.getGraph().addVertex(null);
+                v.setProperty(Constants.Property.type.name(), Constants.PROPERTY_INDEX_TYPE);
+                v.setProperty(Constants.Property.uid.name(), type.name() + "." + index.getProperty());
+                v.setProperty(Constants.Property.indexedType.name(), index.getEntityType().getName());
+                v.setProperty(Constants.Property.indexedProperty.name(), index.getProperty());
+                v.setProperty(Constants.Property.valueType.name(), index.getValueType().getName());
+
+                context.getGraph().commit();
+            } catch (Exception e) {
+                context.getGraph().rollback();
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        context.getPropertyIndexes().add(index);
+    }
+
+    @Override
+    public Set<PropertyIndex> getAll() {
+        return new HashSet<>(context.getPropertyIndexes());
+    }
+
+    /**
+     * Reads the declarations of the property indices stored in the graph and makes sure the indices exist.
+     */
+    void loadDeclaredIndices() {
+        for (Vertex v : getDeclarations()) {
+            PropertyIndex index = toIndex(v);
+
+            ensureIndex(index);
+
+            context.getPropertyIndexes().add(index);
+        }
+    }
+
+    private Iterable<Vertex> getDeclarations() {
+        return context.getGraph().query().has(Constants.Property.type.name(), Constants.PROPERTY_INDEX_TYPE)
+                .vertices();
+    }
+
+    private static PropertyIndex toIndex(Vertex declaration) {
+        try {
+            return new PropertyIndex(
+                    Class.forName(declaration.getProperty(Constants.Property.indexedType.name()))
+                            .asSubclass(Entity.class),
+                    declaration.getProperty(Constants.Property.indexedProperty.name()),
+                    Class.forName(declaration.getProperty(Constants.Property.valueType.name())));
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Invalid declaration of a property index stored in the graph.", e);
+        }
+    }
+
+    /**
+     * Makes sure both the lookups across all the tenants and the lookups within a single tenant are served by an index.
+     */
+    @SuppressWarnings("unchecked")
+    private void ensureIndex(PropertyIndex index) {
+        context.getGraphProvider().ensureIndices(context.getBaseGraph(),
+                IndexSpec.builder()
+                        .withElementType(Vertex.class)
+                        .withProperty(Constants.Property.type.name(), String.class)
+                        .withProperty(index.getProperty(), index.getValueType()).build(),
+                IndexSpec.builder()
+                        .withElementType(Vertex.class)
+                        .withProperty(Constants.Property.type.name(), String.class)
+                        .withProperty(Constants.Property.tenantUid.name(), String.class)
+                        .withProperty(index.getProperty(), index.getValueType()).build());
+    }
+}
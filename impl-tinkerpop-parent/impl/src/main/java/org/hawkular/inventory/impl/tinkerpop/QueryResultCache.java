@@ -0,0 +1,353 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Vertex;
+import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.Related;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.Environment;
+import org.hawkular.inventory.api.model.Tenant;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hawkular.inventory.impl.tinkerpop.AbstractGraphService.getEnvironmentVertexOf;
+import static org.hawkular.inventory.impl.tinkerpop.AbstractGraphService.getTenantVertexOf;
+import static org.hawkular.inventory.impl.tinkerpop.AbstractGraphService.getType;
+import static org.hawkular.inventory.impl.tinkerpop.AbstractGraphService.getUid;
+import static org.hawkular.inventory.impl.tinkerpop.FilterApplicator.idAt;
+import static org.hawkular.inventory.impl.tinkerpop.FilterApplicator.isDownwardContains;
+import static org.hawkular.inventory.impl.tinkerpop.FilterApplicator.isSingleId;
+
+/**
+ * A cache of the results of the queries for multiple entities keyed by the filter chains of the queries.
+ *
+ * <p>Each cached result remembers the revisions of the parts of the inventory it was read from. A query that starts
+ * at a single tenant and only descends the "contains" hierarchy from there depends on the revision of that tenant.
+ * If it starts at a single environment of a tenant, it only depends on the revision of that environment and the
+ * revision of the entities directly in the tenant (which includes the types embedded in the resources and
+ * metrics). Any other query depends on the global revision.
+ *
+ * <p>The creations and updates of the entities bump the revisions of the parts of the inventory they live in, while
+ * the deletes and the changes of the relationships, which can change where any path leads, invalidate all the
+ * results.
+ *
+ * <p>The memory used by the cache is bounded by the total weight of the results, which is the number of entities in
+ * them (plus one so that the empty results are not free).
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class QueryResultCache {
+    private static final List<String> GLOBAL = Collections.singletonList("");
+
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<List<String>, Long> revisions = new HashMap<>();
+
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxWeight the maximum total weight of the cached results, 0 disables the cache
+     * @param ttlMillis the number of milliseconds after which the cached results expire
+     */
+    QueryResultCache(long maxWeight, long ttlMillis) {
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+    }
+
+    boolean isEnabled() {
+        return maxWeight > 0;
+    }
+
+    /**
+     * @return the maximum total weight of the cached results
+     */
+    long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Builds the key from the parts of the filters, with the classes of all the values, so that the filters that differ
+     * only in the type of a value, like the values {@code 80} and {@code "80"} of a property, don't share the key.
+     *
+     * @param path the filter chain of the query
+     * @return the key to cache the results under or null if the query is not cacheable
+     */
+    static String keyOf(FilterApplicator<?>... path) {
+        StringBuilder bld = new StringBuilder();
+        for (FilterApplicator<?> fa : path) {
+            bld.append(fa.type.name()).append(':');
+            if (!appendKey(bld, fa.filter)) {
+                return null;
+            }
+            bld.append('/');
+        }
+
+        return bld.toString();
+    }
+
+    private static boolean appendKey(StringBuilder bld, Filter filter) {
+        if (filter instanceof Related) {
+            Related<?> f = (Related<?>) filter;
+            Entity entity = f.getEntity();
+            bld.append("Related");
+            appendValues(bld, f.getRelationshipName(), f.getRelationshipId(), f.getEntityRole(), f.isTransitive(),
+                    f.getMaxDepth(), f.isDedup(), entity == null ? null : entity.getClass(),
+                    entity == null ? null : entity.getId());
+        } else if (filter instanceof With.Ids) {
+            bld.append("Ids");
+            appendValues(bld, (Object[]) ((With.Ids) filter).getIds());
+        } else if (filter instanceof With.Types) {
+            bld.append("Types");
+            appendValues(bld, (Object[]) ((With.Types) filter).getTypes());
+        } else if (filter instanceof With.PropertyValues) {
+            With.PropertyValues f = (With.PropertyValues) filter;
+            bld.append("PropertyValues");
+            appendValues(bld, f.getOperator(), f.getProperty());
+            appendValues(bld, f.getValues());
+        } else if (filter instanceof RelatedOfTypeFilter) {
+            RelatedOfTypeFilter f = (RelatedOfTypeFilter) filter;
+            bld.append("RelatedOfType");
+            appendValues(bld, f.getRelationship(), f.getTargetType());
+        } else if (filter instanceof IndexedCandidatesFilter) {
+            //the searches are not represented by any filter that could tell them apart
+            Filter original = ((IndexedCandidatesFilter) filter).getOriginal();
+            return original != null && appendKey(bld, original);
+        } else {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Appends the class and the string form of each value. Both are prefixed by their length, so no value can be
+     * mistaken for a part of another.
+     */
+    private static void appendValues(StringBuilder bld, Object... values) {
+        bld.append('[');
+        for (Object v : values) {
+            String cls = v == null ? "null" : (v instanceof Class ? "class" : v.getClass().getName());
+            String str = v == null ? "" : (v instanceof Class ? ((Class<?>) v).getName() : v.toString());
+            bld.append(cls.length()).append(':').append(cls).append(str.length()).append(':').append(str);
+        }
+        bld.append(']');
+    }
+
+    /**
+     * Works out the parts of the inventory the results of a query following the path depend on.
+     *
+     * @param path the filter chain of the query
+     * @return the keys of the revisions of the inventory parts
+     */
+    static List<List<String>> dependenciesOf(FilterApplicator<?>... path) {
+        String tenantId = idAt(path, 0, Tenant.class);
+        if (tenantId == null) {
+            return Collections.singletonList(GLOBAL);
+        }
+
+        int i = 2;
+        String environmentId = null;
+        if (path.length > 3 && isContainsOfType(path[2], Environment.class) && isSingleId(path[3])) {
+            environmentId = ((With.Ids) path[3].filter).getIds()[0];
+            i = 4;
+        } else if (path.length > 4 && isDownwardContains(path[2])) {
+            environmentId = idAt(path, 3, Environment.class);
+            i = environmentId == null ? 2 : 5;
+        }
+
+        for (; i < path.length; ++i) {
+            //the filters only look at the immediate surroundings, but the path can lead anywhere
+            if (path[i].type == FilterApplicator.Type.PATH && !isDownwardContains(path[i])
+                    && !(path[i].filter instanceof With.Ids) && !(path[i].filter instanceof With.Types)
+                    && !(path[i].filter instanceof With.PropertyValues)) {
+                return Collections.singletonList(GLOBAL);
+            }
+        }
+
+        if (environmentId == null) {
+            return Collections.singletonList(Arrays.asList("tenant", tenantId));
+        } else {
+            return Arrays.asList(Arrays.asList("tenant-entities", tenantId),
+                    Arrays.asList("environment", tenantId, environmentId));
+        }
+    }
+
+    synchronized List<Long> getRevisions(List<List<String>> dependencies) {
+        List<Long> ret = new ArrayList<>(dependencies.size());
+        dependencies.forEach(d -> ret.add(revisions.getOrDefault(d, 0L)));
+        return ret;
+    }
+
+    /**
+     * @param key          the key of the query
+     * @param dependencies the parts of the inventory the results depend on
+     * @return copies of the cached results or null if there are no valid results cached under the key
+     */
+    synchronized List<Entity> get(String key, List<List<String>> dependencies) {
+        CacheEntry e = entries.get(key);
+
+        if (e != null && (e.expiresAt < System.currentTimeMillis()
+                || !e.revisions.equals(getRevisions(dependencies)))) {
+            remove(key);
+            evictions++;
+            e = null;
+        }
+
+        if (e == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+
+        List<Entity> ret = new ArrayList<>(e.results.size());
+        e.results.forEach(r -> ret.add(EntityCache.copy(r)));
+        return ret;
+    }
+
+    /**
+     * Caches the results unless the inventory parts they depend on changed since the provided revisions were read.
+     *
+     * @param key          the key of the query
+     * @param results      the results of the query
+     * @param dependencies the parts of the inventory the results depend on
+     * @param revisions    the revisions of the parts at the time the query started to be evaluated
+     */
+    synchronized void put(String key, Collection<? extends Entity> results, List<List<String>> dependencies,
+                          List<Long> revisions) {
+        long resultWeight = results.size() + 1;
+        if (resultWeight > maxWeight || !revisions.equals(getRevisions(dependencies))) {
+            return;
+        }
+
+        List<Entity> copies = new ArrayList<>(results.size());
+        results.forEach(r -> copies.add(EntityCache.copy(r)));
+
+        remove(key);
+        entries.put(key, new CacheEntry(copies, revisions, System.currentTimeMillis() + ttlMillis));
+        weight += resultWeight;
+
+        //the least recently used results go first
+        Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+        while (weight > maxWeight && it.hasNext()) {
+            weight -= it.next().getValue().results.size() + 1;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * Bumps the revisions of the parts of the inventory the new entity belongs to.
+     *
+     * @param v the vertex of the new entity
+     */
+    synchronized void created(Vertex v) {
+        bump(v);
+    }
+
+    /**
+     * Bumps the revisions of the parts of the inventory the updated entity belongs to.
+     *
+     * @param v the vertex of the updated entity
+     */
+    synchronized void updated(Vertex v) {
+        Constants.Type type = Constants.Type.valueOf(getType(v));
+        if (type == Constants.Type.resourceType || type == Constants.Type.metricType) {
+            //the types are embedded in the resources and metrics that can be reached from anywhere
+            invalidateAll();
+        } else {
+            bump(v);
+        }
+    }
+
+    synchronized void invalidateAll() {
+        bump(GLOBAL);
+        entries.clear();
+        weight = 0;
+    }
+
+    synchronized CacheStatistics getStatistics() {
+        return new CacheStatistics(hits, misses, evictions, entries.size());
+    }
+
+    private void bump(Vertex v) {
+        bump(GLOBAL);
+
+        Constants.Type type = Constants.Type.valueOf(getType(v));
+        String tenantId = getUid(type == Constants.Type.tenant ? v : getTenantVertexOf(v));
+        bump(Arrays.asList("tenant", tenantId));
+
+        switch (type) {
+            case feed:
+            case resource:
+            case metric:
+                bump(Arrays.asList("environment", tenantId, getUid(getEnvironmentVertexOf(v))));
+                break;
+            case environment:
+                bump(Arrays.asList("environment", tenantId, getUid(v)));
+                bump(Arrays.asList("tenant-entities", tenantId));
+                break;
+            default:
+                bump(Arrays.asList("tenant-entities", tenantId));
+        }
+    }
+
+    private void bump(List<String> key) {
+        revisions.merge(key, 1L, Long::sum);
+    }
+
+    private void remove(String key) {
+        CacheEntry old = entries.remove(key);
+        if (old != null) {
+            weight -= old.results.size() + 1;
+        }
+    }
+
+    private static boolean isContainsOfType(FilterApplicator<?> fa, Class<? extends Entity> type) {
+        return fa.filter instanceof RelatedOfTypeFilter
+                && ((RelatedOfTypeFilter) fa.filter).getRelationship() == Relationships.WellKnown.contains
+                && ((RelatedOfTypeFilter) fa.filter).getTargetType() == type;
+    }
+
+    private static final class CacheEntry {
+        final List<Entity> results;
+        final List<Long> revisions;
+        final long expiresAt;
+
+        CacheEntry(List<Entity> results, List<Long> revisions, long expiresAt) {
+            this.results = results;
+            this.revisions = revisions;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
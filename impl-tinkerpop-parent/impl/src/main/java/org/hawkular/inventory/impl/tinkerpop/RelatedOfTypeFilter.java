@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.model.Entity;
+
+/**
+ * Filter used internally by the impl to go from a vertex to its targets of a certain type over the edges of given
+ * label. This is semantically equivalent to {@code Related.by(relationship), With.type(targetType)}.
+ *
+ * <p>The difference is that this filter doesn't need to iterate over all the edges with given label and check the
+ * type of each of the targets. Each edge stores the type of its target and the edges are indexed by it, so only the
+ * edges leading to the targets of the desired type are looked at. This makes a big difference for example for
+ * environments that contain a huge number of metrics but only a few resources.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class RelatedOfTypeFilter extends Filter {
+    private final Relationships.WellKnown relationship;
+    private final Class<? extends Entity> targetType;
+
+    RelatedOfTypeFilter(Relationships.WellKnown relationship, Class<? extends Entity> targetType) {
+        this.relationship = relationship;
+        this.targetType = targetType;
+    }
+
+    public Relationships.WellKnown getRelationship() {
+        return relationship;
+    }
+
+    public Class<? extends Entity> getTargetType() {
+        return targetType;
+    }
+
+    @Override
+    public String toString() {
+        return "RelatedOfType[relationship=" + relationship.name() + ", targetType=" + targetType.getSimpleName()
+                + "]";
+    }
+}
@@ -40,9 +40,7 @@ import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
 
-import java.util.Map;
 import java.util.Set;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -74,11 +72,10 @@ final class RelationshipBrowser<E extends Entity> extends AbstractBrowser<E> {
                 }
                 Edge edge = edges.next();
 
-                Relationship relationship = new Relationship(edge.getId().toString(), edge.getLabel(), convert(edge
-                         .getVertex(Direction.OUT)), convert(edge.getVertex(Direction.IN)));
-                Map<String, Object> properties = edge.getPropertyKeys().stream().collect(Collectors.toMap(Function
-                        .<String>identity(), key -> edge.<Object>getProperty(key)));
-                relationship.getProperties().putAll(properties);
+                TypeDefinitions types = iContext.getTypeDefinitions();
+                Relationship relationship = new Relationship(edge.getId().toString(), edge.getLabel(),
+                        convert(edge.getVertex(Direction.OUT), types), convert(edge.getVertex(Direction.IN), types));
+                copyProperties(edge, relationship);
                 return relationship;
             }
         };
@@ -97,16 +94,14 @@ final class RelationshipBrowser<E extends Entity> extends AbstractBrowser<E> {
             public Set<Relationship> entities() {
                 HawkularPipeline<?, Edge> edges = b.source().cast(Edge.class);
 
+                TypeDefinitions types = iContext.getTypeDefinitions();
                 Stream<Relationship> relationshipStream = StreamSupport
                         .stream(edges.spliterator(), false)
                         .map(edge -> {
                             Relationship relationship = new Relationship(getUid(edge), edge.getLabel(),
-                                    convert(edge.getVertex(Direction.OUT)), convert(edge.getVertex(Direction.IN)));
-                            // copy the properties
-                            Map<String, Object> properties = edge.getPropertyKeys().stream()
-                                    .collect(Collectors.toMap(Function.<String>identity(), edge::<Object>getProperty));
-
-                            relationship.getProperties().putAll(properties);
+                                    convert(edge.getVertex(Direction.OUT), types),
+                                    convert(edge.getVertex(Direction.IN), types));
+                            copyProperties(edge, relationship);
                             return relationship;
                         });
 
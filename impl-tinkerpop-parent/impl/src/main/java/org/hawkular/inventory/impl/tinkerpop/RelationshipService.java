@@ -16,12 +16,11 @@
  */
 package org.hawkular.inventory.impl.tinkerpop;
 
+import com.tinkerpop.blueprints.Contains;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
-import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.util.ElementHelper;
-import com.tinkerpop.pipes.PipeFunction;
 import org.hawkular.inventory.api.RelationNotFoundException;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.filters.Filter;
@@ -30,7 +29,12 @@ import org.hawkular.inventory.api.filters.RelationWith;
 import org.hawkular.inventory.api.model.Entity;
 import org.hawkular.inventory.api.model.Relationship;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import static org.hawkular.inventory.api.Relationships.Direction.incoming;
 import static org.hawkular.inventory.api.Relationships.Direction.outgoing;
@@ -138,9 +142,13 @@ final class RelationshipService<E extends Entity> extends AbstractSourcedGraphSe
         Edge newEdge = pipe.next();
         //believe it or not, Titan cannot filter on ids, hence we need to store the id as a property, too
         newEdge.setProperty(Constants.Property.uid.name(), newEdge.getId().toString());
+        newEdge.setProperty(Constants.Property.targetType.name(), getType(newEdge.getVertex(Direction.IN)));
 
         context.getGraph().commit();
 
+        //the entities contain the data of their defining entities
+        invalidateEndpoints(newEdge);
+
         return createSingleBrowser(RelationWith.id(newEdge.getId().toString()));
     }
 
@@ -149,6 +157,78 @@ final class RelationshipService<E extends Entity> extends AbstractSourcedGraphSe
         return linkWith(name.name(), targetOrSource);
     }
 
+    @Override
+    public Relationships.Multiple linkWith(String name, Collection<? extends Entity> targetsOrSources) {
+        if (null == name) {
+            throw new IllegalArgumentException("name was null");
+        }
+        if (null == targetsOrSources) {
+            throw new IllegalArgumentException("targetsOrSources was null");
+        }
+
+        //resolve all the incidence vertices upfront so that we don't traverse the graph once per entity
+        List<Vertex> incidenceVertices = convert(targetsOrSources);
+        List<Vertex> sources = source().toList();
+        List<String> newEdgeIds = new ArrayList<>();
+
+        //the changes cannot be rolled back if the graph isn't transactional, so check upfront that no edge is going
+        //to be rejected
+        if (contains.name().equals(name) && !context.getCapabilities().isTransactions()) {
+            Direction d = direction == outgoing ? Direction.OUT :
+                    (direction == incoming ? Direction.IN : Direction.BOTH);
+
+            incidenceVertices.forEach(v -> checkContains(d, v));
+        }
+
+        try {
+            for (Vertex incidenceVertex : incidenceVertices) {
+                if (contains.name().equals(name)) {
+                    Direction d = direction == outgoing ? Direction.OUT :
+                            (direction == incoming ? Direction.IN : Direction.BOTH);
+
+                    checkContains(d, incidenceVertex);
+                }
+
+                for (Vertex s : sources) {
+                    switch (direction) {
+                        case outgoing:
+                            newEdgeIds.add(getUid(addEdge(s, name, incidenceVertex)));
+                            break;
+                        case incoming:
+                            newEdgeIds.add(getUid(addEdge(incidenceVertex, name, s)));
+                            break;
+                        case both:
+                            // basically creates a bi-directional relationship
+                            newEdgeIds.add(getUid(addEdge(s, name, incidenceVertex)));
+                            newEdgeIds.add(getUid(addEdge(incidenceVertex, name, s)));
+                            break;
+                    }
+                }
+            }
+
+            context.getGraph().commit();
+        } catch (Exception e) {
+            context.getGraph().rollback();
+            throw e;
+        }
+
+        //the entities contain the data of their defining entities
+        incidenceVertices.forEach(v -> context.getEntityCache().invalidate(v.getId()));
+        sources.forEach(v -> context.getEntityCache().invalidate(v.getId()));
+
+        //the new edges can form new paths to the existing entities
+        context.getMissingEntityCache().invalidateAll();
+        context.getQueryResultCache().invalidateAll();
+
+        return createMultiBrowser(RelationWith.ids(newEdgeIds.toArray(new String[newEdgeIds.size()])));
+    }
+
+    @Override
+    public Relationships.Multiple linkWith(Relationships.WellKnown name, Collection<? extends Entity>
+            targetsOrSources) {
+        return linkWith(name.name(), targetsOrSources);
+    }
+
     @Override
     public void update(Relationship relationship) throws RelationNotFoundException {
         if (null == relationship) {
@@ -158,36 +238,18 @@ final class RelationshipService<E extends Entity> extends AbstractSourcedGraphSe
             throw new IllegalArgumentException("relationship's ID was null");
         }
 
-       // check if the source/target vertex of the relationship is on the current position in hawk-pipe. If not use the
-       // `ifThenElse` for returning an empty iterator and fail subsequent querying
-        PipeFunction<Vertex, Boolean> ifFunction = vertex -> {
-            String uid = vertex.getProperty(Constants.Property.uid.name());
-            boolean sourceOk = uid.equals(relationship.getSource().getId());
-            boolean targetOk = uid.equals(relationship.getTarget().getId());
-            return direction == outgoing ? sourceOk : direction ==
-                    incoming ? targetOk : (sourceOk || targetOk);
-        };
-        PipeFunction<Vertex, ?> thenFunction = v -> v;
-        PipeFunction<Vertex, ?> elseFunction = v -> Collections.<Vertex>emptyList().iterator();
-        HawkularPipeline<?, ?> pipe = source().ifThenElse(ifFunction, thenFunction, elseFunction);
+        relationship.getProperties().keySet().forEach(k -> {
+            if (Constants.EDGE_MAPPED_PROPERTIES.contains(k)) {
+                throw new IllegalArgumentException("Property '" + k + "' is reserved. Cannot set it to a custom value");
+            }
+        });
 
-        switch (direction) {
-            case outgoing:
-                pipe = pipe.outE(relationship.getName());
-                break;
-            case incoming:
-                pipe = pipe.inE(relationship.getName());
-                break;
-            case both:
-                pipe = pipe.bothE(relationship.getName());
-                break;
-        }
-
-        HawkularPipeline<?, Edge> edges = pipe.hasUid(relationship.getId()).cast(Edge.class);
-        if (!edges.hasNext()) {
+        // only the edges incident with the vertices on the current position in the traversal are found
+        List<Edge> edges = findEdges(Collections.singleton(relationship.getId()));
+        if (edges.isEmpty()) {
             throw new RelationNotFoundException(relationship.getId(), FilterApplicator.filters(path));
         }
-        Edge edge = edges.next();
+        Edge edge = edges.get(0);
         if (!edge.getLabel().equals(relationship.getName())) {
             throw new RelationNotFoundException(getUid(edge), FilterApplicator.filters(path),
                     "Cannot update the name of a relationship. Create a new relationship instead.");
@@ -202,6 +264,8 @@ final class RelationshipService<E extends Entity> extends AbstractSourcedGraphSe
         }
 
         ElementHelper.setProperties(edge, relationship.getProperties());
+
+        context.getGraph().commit();
     }
 
     @Override
@@ -209,22 +273,110 @@ final class RelationshipService<E extends Entity> extends AbstractSourcedGraphSe
         if (null == id) {
             throw new IllegalArgumentException("relationship's id was null");
         }
-        HawkularPipeline<?, ? extends Element> pipe = null;
-        switch (direction) {
-            case outgoing:
-                pipe = source().outE().hasUid(id);
-                break;
-            case incoming:
-                pipe = source().inE().hasUid(id);
-                break;
-            case both:
-                pipe = source().bothE().hasUid(id);
-                break;
-        }
-        if (!pipe.hasNext()) {
+
+        List<Edge> edges = findEdges(Collections.singleton(id));
+        if (edges.isEmpty()) {
             throw new RelationNotFoundException(id, null);
         }
-        pipe.remove();
+
+        try {
+            edges.forEach(context.getGraph()::removeEdge);
+            context.getGraph().commit();
+        } catch (Exception e) {
+            context.getGraph().rollback();
+            throw e;
+        }
+
+        //the paths to the entities could lead through the removed edges
+        context.getEntityCache().invalidateAll();
+        context.getTypeDefinitions().invalidateAll();
+        context.getQueryResultCache().invalidateAll();
+    }
+
+    @Override
+    public void delete(Collection<String> ids) throws RelationNotFoundException {
+        if (null == ids) {
+            throw new IllegalArgumentException("relationships' ids were null");
+        }
+
+        List<Edge> edges = findEdges(ids);
+
+        Set<String> notFound = new HashSet<>(ids);
+        edges.forEach(e -> notFound.remove(getUid(e)));
+        if (!notFound.isEmpty()) {
+            throw new RelationNotFoundException(notFound.iterator().next(), null);
+        }
+
+        try {
+            edges.forEach(context.getGraph()::removeEdge);
+            context.getGraph().commit();
+        } catch (Exception e) {
+            context.getGraph().rollback();
+            throw e;
+        }
+
+        //the paths to the entities could lead through the removed edges
+        context.getEntityCache().invalidateAll();
+        context.getTypeDefinitions().invalidateAll();
+        context.getQueryResultCache().invalidateAll();
+    }
+
+    /**
+     * Finds the edges with the provided uids that are incident with the vertices on the current position in the
+     * traversal in the direction of this service.
+     *
+     * <p>A single source vertex is asked for the edges with the uids directly, which the vertex-centric uid indices
+     * can serve. For more source vertices, the edges are looked up in the global uid index and only then checked to be
+     * incident with one of the sources, so that none of the sources needs to walk all its edges.
+     *
+     * @param uids the uids of the edges
+     * @return the list of the found edges
+     */
+    private List<Edge> findEdges(Collection<String> uids) {
+        Direction d = direction == outgoing ? Direction.OUT : (direction == incoming ? Direction.IN : Direction.BOTH);
+        String uid = Constants.Property.uid.name();
+
+        Set<Object> sourceIds = new HashSet<>();
+        Vertex single = null;
+        for (Vertex v : source()) {
+            if (sourceIds.add(v.getId())) {
+                single = v;
+            }
+        }
+
+        List<Edge> ret = new ArrayList<>();
+        if (sourceIds.isEmpty()) {
+            return ret;
+        }
+
+        Iterable<Edge> candidates;
+        if (sourceIds.size() == 1) {
+            candidates = single.query().direction(d).has(uid, Contains.IN, uids).edges();
+        } else {
+            candidates = context.getGraph().query().has(uid, Contains.IN, uids).edges();
+        }
+
+        Set<Object> foundIds = new HashSet<>();
+        for (Edge e : candidates) {
+            boolean incident = (d != Direction.IN && sourceIds.contains(e.getVertex(Direction.OUT).getId()))
+                    || (d != Direction.OUT && sourceIds.contains(e.getVertex(Direction.IN).getId()));
+
+            //a loop edge is returned twice by the vertex query in both directions
+            if (incident && foundIds.add(e.getId())) {
+                ret.add(e);
+            }
+        }
+
+        return ret;
+    }
+
+    private void invalidateEndpoints(Edge edge) {
+        context.getEntityCache().invalidate(edge.getVertex(Direction.OUT).getId());
+        context.getEntityCache().invalidate(edge.getVertex(Direction.IN).getId());
+
+        //the new edge can form new paths to the existing entities
+        context.getMissingEntityCache().invalidateAll();
+        context.getQueryResultCache().invalidateAll();
     }
 
     private void checkContains(Direction direction, Vertex incidenceVertex) {
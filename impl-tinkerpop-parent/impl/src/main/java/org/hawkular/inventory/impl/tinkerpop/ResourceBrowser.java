@@ -20,11 +20,11 @@ import org.hawkular.inventory.api.Metrics;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.Resources;
 import org.hawkular.inventory.api.filters.Filter;
-import org.hawkular.inventory.api.filters.Related;
-import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.Subgraph;
 
+import java.util.Iterator;
 import java.util.Set;
 
 import static org.hawkular.inventory.api.Relationships.WellKnown.owns;
@@ -61,6 +61,11 @@ final class ResourceBrowser extends AbstractBrowser<Resource> {
             public Resource entity() {
                 return b.entity();
             }
+
+            @Override
+            public Subgraph<Resource> subgraph(int depth, String... relationshipNames) {
+                return b.subgraph(depth, relationshipNames);
+            }
         };
     }
 
@@ -87,10 +92,16 @@ final class ResourceBrowser extends AbstractBrowser<Resource> {
             public Set<Resource> entities() {
                 return b.entities();
             }
+
+            @Override
+            public Iterator<Resource> entityIterator() {
+                return b.entityIterator();
+            }
         };
     }
 
     private MetricsService metrics() {
-        return new MetricsService(context, pathToHereWithSelect(Filter.by(Related.by(owns), With.type(Metric.class))));
+        return new MetricsService(context, pathToHereWithSelect(Filter.by(new RelatedOfTypeFilter(owns,
+                Metric.class))));
     }
 }
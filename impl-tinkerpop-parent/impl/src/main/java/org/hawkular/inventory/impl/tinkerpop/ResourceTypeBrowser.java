@@ -22,12 +22,11 @@ import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.ResourceTypes;
 import org.hawkular.inventory.api.Resources;
 import org.hawkular.inventory.api.filters.Filter;
-import org.hawkular.inventory.api.filters.Related;
-import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
 
+import java.util.Iterator;
 import java.util.Set;
 
 import static org.hawkular.inventory.api.Relationships.WellKnown.defines;
@@ -102,16 +101,21 @@ final class ResourceTypeBrowser extends AbstractBrowser<ResourceType> {
             public Set<ResourceType> entities() {
                 return b.entities();
             }
+
+            @Override
+            public Iterator<ResourceType> entityIterator() {
+                return b.entityIterator();
+            }
         };
     }
 
     private Resources.Read resources() {
-        return new ResourcesService(context, pathToHereWithSelect(Filter.by(Related.by(defines),
-                With.type(Resource.class))));
+        return new ResourcesService(context, pathToHereWithSelect(Filter.by(new RelatedOfTypeFilter(defines,
+                Resource.class))));
     }
 
     private MetricTypes.ReadRelate metricTypes() {
-        return new MetricTypesService(context, pathToHereWithSelect(Filter.by(Related.by(owns),
-                With.type(MetricType.class))));
+        return new MetricTypesService(context, pathToHereWithSelect(Filter.by(new RelatedOfTypeFilter(owns,
+                MetricType.class))));
     }
 }
@@ -53,15 +53,14 @@ final class ResourcesService
 
         //connect to all environments in the source
         for (Vertex env : source().hasType(environment)) {
-            env.addEdge(contains.name(), newEntity);
+            addEdge(env, contains.name(), newEntity);
             envs.add(env);
             exampleEnv = env;
         }
 
         //connect to the resource type from the blueprint
-        for (Vertex rt : new HawkularPipeline<>(envs).in(contains).out(contains).hasType(resourceType)
-                .hasUid(blueprint.getType().getId()).cast(Vertex.class)) {
-            rt.addEdge(defines.name(), newEntity);
+        for (Vertex rt : getDefinitionVertices(envs, resourceType, blueprint.getType().getId())) {
+            addEdge(rt, defines.name(), newEntity);
         }
 
         Vertex tenant = getTenantVertexOf(exampleEnv);
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import org.hawkular.inventory.impl.tinkerpop.spi.LockProvider;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The default, in-process, lock provider. The keys are hashed into a fixed number of locks, so that only the
+ * modifications with the keys hashing to the same lock are serialized and the memory needed doesn't grow with the
+ * number of the keys.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class StripedLockProvider implements LockProvider {
+    private final Lock[] stripes;
+
+    StripedLockProvider() {
+        this(Runtime.getRuntime().availableProcessors() * 16);
+    }
+
+    StripedLockProvider(int minStripes) {
+        //power of 2 so that we can mask instead of modulo
+        int size = Integer.highestOneBit(Math.max(1, minStripes - 1)) << 1;
+
+        stripes = new Lock[size];
+        for (int i = 0; i < size; ++i) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Lock getLock(String key) {
+        int h = key.hashCode();
+        //spread the higher bits, the same way HashMap does
+        h ^= (h >>> 16);
+
+        return stripes[h & (stripes.length - 1)];
+    }
+}
@@ -22,13 +22,12 @@ import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.ResourceTypes;
 import org.hawkular.inventory.api.Tenants;
 import org.hawkular.inventory.api.filters.Filter;
-import org.hawkular.inventory.api.filters.Related;
-import org.hawkular.inventory.api.filters.With;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.api.model.ResourceType;
 import org.hawkular.inventory.api.model.Tenant;
 
+import java.util.Iterator;
 import java.util.Set;
 
 import static org.hawkular.inventory.api.Relationships.WellKnown.contains;
@@ -110,21 +109,26 @@ final class TenantBrowser extends AbstractBrowser<Tenant> {
             public Set<Tenant> entities() {
                 return b.entities();
             }
+
+            @Override
+            public Iterator<Tenant> entityIterator() {
+                return b.entityIterator();
+            }
         };
     }
 
     public EnvironmentsService environments() {
         return new EnvironmentsService(context,
-                pathToHereWithSelect(Filter.by(Related.by(contains), With.type(Environment.class))));
+                pathToHereWithSelect(Filter.by(new RelatedOfTypeFilter(contains, Environment.class))));
     }
 
     public ResourceTypesService types() {
-        return new ResourceTypesService(context, pathToHereWithSelect(Filter.by(Related.by(contains),
-                With.type(ResourceType.class))));
+        return new ResourceTypesService(context, pathToHereWithSelect(Filter.by(new RelatedOfTypeFilter(contains,
+                ResourceType.class))));
     }
 
     public MetricTypesService metricDefinitions() {
-        return new MetricTypesService(context, pathToHereWithSelect(Filter.by(Related.by(contains),
-                With.type(MetricType.class))));
+        return new MetricTypesService(context, pathToHereWithSelect(Filter.by(new RelatedOfTypeFilter(contains,
+                MetricType.class))));
     }
 }
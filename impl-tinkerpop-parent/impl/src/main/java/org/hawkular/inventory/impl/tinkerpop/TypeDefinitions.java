@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop;
+
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Vertex;
+import org.hawkular.inventory.api.model.Entity;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hawkular.inventory.impl.tinkerpop.AbstractGraphService.convert;
+import static org.hawkular.inventory.impl.tinkerpop.AbstractGraphService.getTenantVertexOf;
+import static org.hawkular.inventory.impl.tinkerpop.AbstractGraphService.getType;
+import static org.hawkular.inventory.impl.tinkerpop.AbstractGraphService.getUid;
+
+/**
+ * A registry of the resource types and metric types. The definitions are small, rarely change and are needed for
+ * every conversion of a resource or metric and for every creation of them.
+ *
+ * <p>The definitions of a tenant are loaded the first time they are needed and are thrown away when any definition
+ * of the tenant changes. Such a change also marks the loads of the definitions of the tenant that are in progress as
+ * stale and their results are not cached, because they might have been read before the change. The loads of the
+ * other tenants are not affected. A definition that is not found is looked up in the graph again rather than
+ * trusting the cached definitions of the tenant.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class TypeDefinitions {
+    private final Map<String, TenantDefinitions> tenants = new HashMap<>();
+    private final Map<Object, Entity> entitiesByVertexId = new HashMap<>();
+
+    /**
+     * The loads in progress by the id of the tenant. Only the tenants with a load in progress have an entry.
+     */
+    private final Map<String, List<Load>> loads = new HashMap<>();
+
+    /**
+     * @param typeVertex the vertex of a resource type or metric type
+     * @return the entity of the type
+     */
+    Entity getDefinition(Vertex typeVertex) {
+        Entity ret;
+        synchronized (this) {
+            ret = entitiesByVertexId.get(typeVertex.getId());
+        }
+
+        if (ret == null) {
+            ret = load(getTenantVertexOf(typeVertex)).entitiesByVertexId.get(typeVertex.getId());
+        }
+
+        //the entities are mutable, so we cannot hand out the cached instances
+        return ret == null ? convert(typeVertex) : EntityCache.copy(ret);
+    }
+
+    /**
+     * @param tenantVertex the vertex of the tenant the type is defined in
+     * @param type         the type of the definition (resource type or metric type)
+     * @param id           the id of the definition
+     * @return the id of the vertex of the definition or null if there is no such definition
+     */
+    Object getVertexId(Vertex tenantVertex, Constants.Type type, String id) {
+        String key = type.name() + "/" + id;
+
+        TenantDefinitions defs;
+        synchronized (this) {
+            defs = tenants.get(getUid(tenantVertex));
+        }
+
+        Object ret = defs == null ? null : defs.vertexIds.get(key);
+        if (ret == null) {
+            //the cached definitions might predate the type, so the miss needs to be confirmed by the graph
+            ret = load(tenantVertex).vertexIds.get(key);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Invalidates all the definitions of the tenant.
+     *
+     * @param tenantId the id of the tenant
+     */
+    synchronized void invalidate(String tenantId) {
+        List<Load> tenantLoads = loads.get(tenantId);
+        if (tenantLoads != null) {
+            tenantLoads.forEach(l -> l.stale = true);
+        }
+
+        TenantDefinitions defs = tenants.remove(tenantId);
+        if (defs != null) {
+            defs.vertexIds.values().forEach(entitiesByVertexId::remove);
+        }
+    }
+
+    /**
+     * Invalidates the definitions of all the tenants.
+     */
+    synchronized void invalidateAll() {
+        loads.values().forEach(ls -> ls.forEach(l -> l.stale = true));
+        tenants.clear();
+        entitiesByVertexId.clear();
+    }
+
+    private TenantDefinitions load(Vertex tenantVertex) {
+        String tenantId = getUid(tenantVertex);
+        Load load = new Load();
+        synchronized (this) {
+            loads.computeIfAbsent(tenantId, k -> new ArrayList<>()).add(load);
+        }
+
+        TenantDefinitions defs = new TenantDefinitions();
+        try {
+            for (Vertex v : tenantVertex.getVertices(Direction.OUT, Constants.Relationship.contains.name())) {
+                Constants.Type type = Constants.Type.valueOf(getType(v));
+                if (type == Constants.Type.resourceType || type == Constants.Type.metricType) {
+                    defs.vertexIds.put(type.name() + "/" + getUid(v), v.getId());
+                    defs.entitiesByVertexId.put(v.getId(), convert(v));
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                finished(tenantId, load);
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            finished(tenantId, load);
+
+            if (!load.stale) {
+                TenantDefinitions old = tenants.put(tenantId, defs);
+                if (old != null) {
+                    old.vertexIds.values().forEach(entitiesByVertexId::remove);
+                }
+
+                entitiesByVertexId.putAll(defs.entitiesByVertexId);
+            }
+        }
+
+        return defs;
+    }
+
+    private void finished(String tenantId, Load load) {
+        List<Load> tenantLoads = loads.get(tenantId);
+        tenantLoads.remove(load);
+        if (tenantLoads.isEmpty()) {
+            loads.remove(tenantId);
+        }
+    }
+
+    private static final class Load {
+        /**
+         * Only accessed while holding the lock of the registry.
+         */
+        boolean stale;
+    }
+
+    private static final class TenantDefinitions {
+        final Map<String, Object> vertexIds = new HashMap<>();
+        final Map<Object, Entity> entitiesByVertexId = new HashMap<>();
+    }
+}
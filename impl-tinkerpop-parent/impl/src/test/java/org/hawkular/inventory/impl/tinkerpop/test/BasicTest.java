@@ -16,6 +16,7 @@
  */
 package org.hawkular.inventory.impl.tinkerpop.test;
 
+import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Graph;
 import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.TransactionalGraph;
@@ -25,14 +26,20 @@ import com.tinkerpop.blueprints.util.wrappers.wrapped.WrappedGraph;
 import com.tinkerpop.gremlin.java.GremlinPipeline;
 import org.hawkular.inventory.api.Configuration;
 import org.hawkular.inventory.api.EntityNotFoundException;
+import org.hawkular.inventory.api.Environments;
 import org.hawkular.inventory.api.Feeds;
+import org.hawkular.inventory.api.Metrics;
 import org.hawkular.inventory.api.RelationNotFoundException;
 import org.hawkular.inventory.api.Relationships;
 import org.hawkular.inventory.api.ResolvableToMany;
 import org.hawkular.inventory.api.ResolvableToSingle;
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.Tenants;
 import org.hawkular.inventory.api.feeds.AcceptWithFallbackFeedIdStrategy;
 import org.hawkular.inventory.api.feeds.RandomUUIDFeedIdStrategy;
 import org.hawkular.inventory.api.filters.Defined;
+import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.PropertyOperator;
 import org.hawkular.inventory.api.filters.Related;
 import org.hawkular.inventory.api.filters.RelationWith;
 import org.hawkular.inventory.api.filters.With;
@@ -42,11 +49,14 @@ import org.hawkular.inventory.api.model.Feed;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.api.model.MetricUnit;
+import org.hawkular.inventory.api.model.PropertyIndex;
 import org.hawkular.inventory.api.model.Relationship;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.Subgraph;
 import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.api.model.Version;
+import org.hawkular.inventory.impl.tinkerpop.CacheStatistics;
 import org.hawkular.inventory.impl.tinkerpop.InventoryService;
 import org.junit.After;
 import org.junit.Assert;
@@ -61,12 +71,23 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -83,18 +104,8 @@ public class BasicTest {
 
     @Before
     public void setup() throws Exception {
-        Properties ps = new Properties();
-        try (FileInputStream f = new FileInputStream(System.getProperty("graph.config"))) {
-            ps.load(f);
-        }
-
-        Configuration config = Configuration.builder().withFeedIdStrategy(
-                new AcceptWithFallbackFeedIdStrategy(new RandomUUIDFeedIdStrategy()))
-                .withConfiguration(ps)
-                .build();
-
         inventory = new InventoryService();
-        inventory.initialize(config);
+        inventory.initialize(loadConfiguration());
 
         graph = inventory.getGraph();
 
@@ -248,10 +259,45 @@ public class BasicTest {
         }
     }
 
+    private void assertCacheHits(CacheStatistics statistics, long hitsBefore) {
+        if (isCaching()) {
+            assert statistics.getHits() > hitsBefore : "The cache should have been hit.";
+            assert statistics.getSize() > 0 : "The cache should not be empty.";
+        } else {
+            assert statistics.getHits() == 0 : "The disabled cache should never be hit.";
+            assert statistics.getSize() == 0 : "The disabled cache should stay empty.";
+        }
+    }
+
     private void assertExists(Entity... es) {
         Stream.of(es).forEach(this::assertExists);
     }
 
+    /**
+     * @return true if the inventory under test caches the entities, the missing entities and the query results
+     */
+    protected boolean isCaching() {
+        return false;
+    }
+
+    private Configuration loadConfiguration() throws IOException {
+        Properties ps = new Properties();
+        try (FileInputStream f = new FileInputStream(System.getProperty("graph.config"))) {
+            ps.load(f);
+        }
+
+        if (isCaching()) {
+            ps.setProperty(InventoryService.ENTITY_CACHE_SIZE_PROPERTY, "1000");
+            ps.setProperty(InventoryService.MISSING_ENTITY_CACHE_SIZE_PROPERTY, "1000");
+            ps.setProperty(InventoryService.QUERY_RESULT_CACHE_WEIGHT_PROPERTY, "10000");
+        }
+
+        return Configuration.builder().withFeedIdStrategy(
+                new AcceptWithFallbackFeedIdStrategy(new RandomUUIDFeedIdStrategy()))
+                .withConfiguration(ps)
+                .build();
+    }
+
     @After
     public void teardown() throws Exception {
         try {
@@ -475,6 +521,18 @@ public class BasicTest {
                 .named("yourMom").entities().iterator().next();
         assert rel1.getId().equals(rel3.getId()) && someValue.equals(rel3.getProperties().get(someKey))
                 : "There should be the property with key 'k3y' and value 'v4lu3'";
+        assert !rel3.getProperties().containsKey("targetType") && !rel3.getProperties().containsKey("uid")
+                : "The properties maintained by the inventory should not be visible on the relationships";
+
+        rel3.getProperties().put("targetType", "tenant");
+        try {
+            inventory.tenants().get("com.example.tenant").environments().get("test").resources()
+                    .get("playroom2").metrics().get("playroom2_size").relationships(Relationships.Direction.outgoing)
+                    .update(rel3);
+            assert false : "It shouldn't be possible to set the properties maintained by the inventory";
+        } catch (IllegalArgumentException e) {
+            // good
+        }
 
         try {
             inventory.tenants().get("com.example.tenant").environments().get("test").resources()
@@ -766,6 +824,552 @@ public class BasicTest {
         test.apply("com.example.tenant", "test", "playroom2", "playroom2_size");
     }
 
+    @Test
+    public void testBulkAssociateMetricsWithResource() throws Exception {
+        Set<String> notFound = inventory.tenants().get("com.example.tenant").environments().get("test").resources()
+                .get("playroom1").metrics().add(Arrays.asList("playroom2_size", "nonexistent_metric"));
+
+        assert notFound.size() == 1 && notFound.contains("nonexistent_metric")
+                : "Only the nonexistent metric should be reported as not found.";
+
+        Set<Metric> ms = inventory.tenants().get("com.example.tenant").environments().get("test").resources()
+                .get("playroom1").metrics().getAll().entities();
+        assert ms.size() == 2 : "playroom1 should own 2 metrics after the bulk add.";
+
+        notFound = inventory.tenants().get("com.example.tenant").environments().get("test").resources()
+                .get("playroom1").metrics().remove(Arrays.asList("playroom2_size", "nonexistent_metric"));
+
+        assert notFound.size() == 1 && notFound.contains("nonexistent_metric")
+                : "Only the nonexistent metric should be reported as not found.";
+
+        ms = inventory.tenants().get("com.example.tenant").environments().get("test").resources()
+                .get("playroom1").metrics().getAll().entities();
+        assert ms.size() == 1 : "playroom1 should own just 1 metric after the bulk remove.";
+    }
+
+    @Test
+    public void testRelationshipServiceBulkLinkWithAndDelete() throws Exception {
+        Set<Relationship> links = inventory.tenants().get("com.example.tenant")
+                .relationships(Relationships.Direction.outgoing).linkWith("bulkLink",
+                        Arrays.asList(new Tenant("com.acme.tenant"), new Environment("com.example.tenant", "test")))
+                .entities();
+
+        assert links.size() == 2 : "There should be 2 relationships created.";
+
+        assert inventory.tenants().get("com.example.tenant").relationships(Relationships.Direction.outgoing)
+                .named("bulkLink").entities().size() == 2 : "Relations 'bulkLink' were not found.";
+
+        try {
+            inventory.tenants().get("com.example.tenant").relationships(Relationships.Direction.outgoing)
+                    .linkWith("bulkLink2", Arrays.asList(new Tenant("com.acme.tenant"), new Tenant("nonexistent")));
+            Assert.fail("Linking with a nonexistent entity should fail.");
+        } catch (EntityNotFoundException e) {
+            //expected
+        }
+
+        assert inventory.tenants().get("com.example.tenant").relationships(Relationships.Direction.outgoing)
+                .named("bulkLink2").entities().isEmpty() : "No 'bulkLink2' relation should have been created.";
+
+        List<String> ids = links.stream().map(Relationship::getId).collect(Collectors.toList());
+        inventory.tenants().get("com.example.tenant").relationships(Relationships.Direction.outgoing).delete(ids);
+
+        assert inventory.tenants().get("com.example.tenant").relationships(Relationships.Direction.outgoing)
+                .named("bulkLink").entities().isEmpty() : "Relations 'bulkLink' were found.";
+    }
+
+    @Test
+    public void testContainsEdgesPartitionedByTargetType() throws Exception {
+        BiFunction<String, Integer, Void> test = (targetType, expectedCount) -> {
+            GremlinPipeline<Graph, Vertex> q = new GremlinPipeline<Graph, Vertex>(graph).V().has("type", "tenant")
+                    .has("uid", "com.example.tenant").out("contains").has("type", "environment").has("uid", "test")
+                    .outE("contains").has("targetType", targetType).inV().cast(Vertex.class);
+
+            List<Vertex> targets = q.toList();
+            assert targets.size() == expectedCount;
+            assert targets.stream().allMatch(v -> targetType.equals(v.getProperty("type")));
+
+            return null;
+        };
+
+        test.apply("resource", 2);
+        test.apply("metric", 2);
+        test.apply("feed", 0);
+
+        assert inventory.tenants().get("com.example.tenant").environments().get("test").resources().getAll()
+                .entities().size() == 2;
+        assert inventory.tenants().get("com.example.tenant").environments().get("test").metrics().getAll()
+                .entities().size() == 2;
+    }
+
+    @Test
+    public void testFilterByPropertyValues() throws Exception {
+        Resources.ReadWrite resources = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .resources();
+
+        Resource playroom1 = resources.get("playroom1").entity();
+        playroom1.getProperties().put("size", 10);
+        playroom1.getProperties().put("name", "kitchen");
+        resources.update(playroom1);
+
+        Resource playroom2 = resources.get("playroom2").entity();
+        playroom2.getProperties().put("size", 20);
+        resources.update(playroom2);
+
+        Function<Filter, Set<String>> query = f -> resources.getAll(f).entities().stream().map(Entity::getId)
+                .collect(Collectors.toSet());
+
+        assert query.apply(With.property("size", 10)).equals(Collections.singleton("playroom1"));
+        assert query.apply(With.property("size", PropertyOperator.NOT_EQUAL, 10))
+                .equals(Collections.singleton("playroom2"));
+        assert query.apply(With.property("size", PropertyOperator.GREATER_THAN, 15))
+                .equals(Collections.singleton("playroom2"));
+        assert query.apply(With.property("size", PropertyOperator.LESS_THAN_EQUAL, 20)).size() == 2;
+        assert query.apply(With.propertyInRange("size", 5, 15)).equals(Collections.singleton("playroom1"));
+        assert query.apply(With.property("size", PropertyOperator.IN, 20, 30))
+                .equals(Collections.singleton("playroom2"));
+        assert query.apply(With.property("name", PropertyOperator.PREFIX, "kit"))
+                .equals(Collections.singleton("playroom1"));
+        assert query.apply(With.propertyExists("name")).equals(Collections.singleton("playroom1"));
+
+        try {
+            With.property("size", PropertyOperator.RANGE, 1);
+            Assert.fail("RANGE should require 2 values.");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testFilterByPropertyValuesOfMixedTypes() throws Exception {
+        Resources.ReadWrite resources = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .resources();
+
+        Resource playroom1 = resources.get("playroom1").entity();
+        playroom1.getProperties().put("size", 10L);
+        resources.update(playroom1);
+
+        Resource playroom2 = resources.get("playroom2").entity();
+        playroom2.getProperties().put("size", "large");
+        resources.update(playroom2);
+
+        Function<Filter, Set<String>> query = f -> resources.getAll(f).entities().stream().map(Entity::getId)
+                .collect(Collectors.toSet());
+
+        //the numbers are compared by value and the values of other types are skipped rather than failing the query
+        assert query.apply(With.property("size", PropertyOperator.GREATER_THAN, 5))
+                .equals(Collections.singleton("playroom1"));
+        assert query.apply(With.property("size", PropertyOperator.LESS_THAN, 10.5))
+                .equals(Collections.singleton("playroom1"));
+        assert query.apply(With.property("size", PropertyOperator.LESS_THAN_EQUAL, 10))
+                .equals(Collections.singleton("playroom1"));
+        assert query.apply(With.propertyInRange("size", 5, 15)).equals(Collections.singleton("playroom1"));
+        assert query.apply(With.property("size", PropertyOperator.GREATER_THAN, "a"))
+                .equals(Collections.singleton("playroom2"));
+        assert query.apply(With.property("size", PropertyOperator.GREATER_THAN_EQUAL, new Object())).isEmpty();
+    }
+
+    @Test
+    public void testTransitiveRelated() throws Exception {
+        Resources.ReadWrite resources = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .resources();
+        Resource playroom1 = resources.get("playroom1").entity();
+        Resource playroom2 = resources.get("playroom2").entity();
+
+        // tenant -> environment -> resource
+        assert inventory.tenants().getAll(Related.with(playroom1, "contains").transitive(1)).entities().isEmpty();
+        assert inventory.tenants().getAll(Related.with(playroom1, "contains").transitive(2)).entities().stream()
+                .map(Entity::getId).collect(Collectors.toSet()).equals(Collections.singleton("com.example.tenant"));
+
+        // a cycle must not make the unlimited traversal go on forever
+        resources.get("playroom1").relationships(Relationships.Direction.outgoing).linkWith("isParentOf", playroom2);
+        resources.get("playroom2").relationships(Relationships.Direction.outgoing).linkWith("isParentOf", playroom1);
+
+        Set<String> ids = resources.getAll(Related.asTargetWith(playroom1, "isParentOf").transitive(0)).entities()
+                .stream().map(Entity::getId).collect(Collectors.toSet());
+        assert ids.size() == 2;
+        assert ids.contains("playroom1");
+        assert ids.contains("playroom2");
+
+        try {
+            Related.by("isParentOf").transitive(0, false);
+            Assert.fail("Unlimited traversal without deduplication should be disallowed.");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testResourceSubgraph() throws Exception {
+        Resources.Single playroom2 = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .resources().get("playroom2");
+
+        Subgraph<Resource> sg = playroom2.subgraph(0);
+        assert "playroom2".equals(sg.getRoot().getId());
+        assert sg.getEntities().isEmpty();
+        assert sg.getRelationships().isEmpty();
+
+        sg = playroom2.subgraph(1);
+        assert sg.getEntities().stream().map(Entity::getId).collect(Collectors.toSet())
+                .equals(new HashSet<>(Arrays.asList("test", "Playroom", "playroom2_size")));
+        assert sg.getRelationships().size() == 3;
+
+        sg = playroom2.subgraph(2, "owns", "defines");
+        assert sg.getEntities().stream().map(Entity::getId).collect(Collectors.toSet())
+                .equals(new HashSet<>(Arrays.asList("Playroom", "playroom2_size", "playroom1", "Size")));
+        // playroom2 -> playroom2_size, Playroom -> playroom2, Playroom -> playroom1, Playroom -> Size,
+        // Size -> playroom2_size
+        assert sg.getRelationships().size() == 5;
+        assert sg.getRelationships().stream().allMatch(r -> "owns".equals(r.getName())
+                || "defines".equals(r.getName()));
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        Environments.Single test = inventory.tenants().get("com.example.tenant").environments().get("test");
+
+        Function<ResolvableToMany<? extends Entity>, Set<String>> ids = r -> r.entities().stream()
+                .map(Entity::getId).collect(Collectors.toSet());
+
+        assert ids.apply(test.resources().search("playroom"))
+                .equals(new HashSet<>(Arrays.asList("playroom1", "playroom2")));
+        assert ids.apply(test.resources().search("playroom1")).equals(Collections.singleton("playroom1"));
+        assert test.resources().search("room").entities().isEmpty();
+
+        // only the entities of the searched type are found
+        assert ids.apply(test.metrics().search("playroom"))
+                .equals(new HashSet<>(Arrays.asList("playroom1_size", "playroom2_size")));
+
+        // the search is restricted to the current position in the traversal
+        assert inventory.tenants().get("com.acme.tenant").environments().get("production").resources()
+                .search("playroom").entities().isEmpty();
+
+        // the configured properties are searched in, too
+        Resource playroom2 = test.resources().get("playroom2").entity();
+        playroom2.getProperties().put("description", "The room next to the kitchen");
+        test.resources().update(playroom2);
+
+        assert ids.apply(test.resources().search("kitchen")).equals(Collections.singleton("playroom2"));
+        assert ids.apply(test.resources().search("playroom")).equals(new HashSet<>(Arrays.asList("playroom1",
+                "playroom2")));
+        assert test.resources().search("cellar").entities().isEmpty();
+    }
+
+    @Test
+    public void testPropertyIndexes() throws Exception {
+        PropertyIndex index = new PropertyIndex(Resource.class, "hostname", String.class);
+        inventory.propertyIndexes().create(index);
+
+        assert inventory.propertyIndexes().getAll().contains(index);
+
+        //declaring the same index again is a no-op
+        inventory.propertyIndexes().create(index);
+        assert inventory.propertyIndexes().getAll().size() == 1;
+
+        Resources.ReadWrite resources = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .resources();
+
+        Resource playroom1 = resources.get("playroom1").entity();
+        playroom1.getProperties().put("hostname", "kitchen.example.com");
+        resources.update(playroom1);
+
+        Set<String> found = resources.getAll(With.property("hostname", "kitchen.example.com")).entities().stream()
+                .map(Entity::getId).collect(Collectors.toSet());
+        assert found.equals(Collections.singleton("playroom1"));
+
+        Resources.ReadWrite acmeResources = inventory.tenants().get("com.acme.tenant").environments()
+                .get("production").resources();
+
+        assert acmeResources.getAll(With.property("hostname", "kitchen.example.com")).entities().isEmpty();
+
+        //the same value in another tenant is only found within that tenant
+        Resource host1 = acmeResources.get("host1").entity();
+        host1.getProperties().put("hostname", "kitchen.example.com");
+        acmeResources.update(host1);
+
+        assert resources.getAll(With.property("hostname", "kitchen.example.com")).entities().stream()
+                .map(Entity::getId).collect(Collectors.toSet()).equals(Collections.singleton("playroom1"));
+        assert acmeResources.getAll(With.property("hostname", "kitchen.example.com")).entities().stream()
+                .map(Entity::getId).collect(Collectors.toSet()).equals(Collections.singleton("host1"));
+
+        //the tenant the vertices are scoped to is not a property of the entities
+        assert !resources.get("playroom1").entity().getProperties().containsKey("tenantUid");
+
+        try {
+            inventory.propertyIndexes().create(new PropertyIndex(Metric.class, "hostname", Long.class));
+            Assert.fail("The same property cannot be indexed with different value types.");
+        } catch (IllegalArgumentException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testUnitOfWork() throws Exception {
+        inventory.beginUnitOfWork(true);
+        try {
+            assert inventory.tenants().getAll().entities().size() == 2;
+        } finally {
+            inventory.endUnitOfWork();
+        }
+
+        //a unit of work that was never ended doesn't make the thread unusable
+        inventory.beginUnitOfWork(true);
+        inventory.tenants().getAll().entities();
+        inventory.beginUnitOfWork(false);
+        try {
+            assert inventory.tenants().getAll().entities().size() == 2;
+        } finally {
+            inventory.endUnitOfWork();
+        }
+
+        inventory.beginUnitOfWork(false);
+        try {
+            inventory.tenants().create("com.example.uow");
+        } finally {
+            inventory.endUnitOfWork();
+        }
+
+        inventory.beginUnitOfWork(true);
+        try {
+            assert inventory.tenants().get("com.example.uow").entity() != null;
+        } finally {
+            inventory.endUnitOfWork();
+        }
+
+        inventory.tenants().delete("com.example.uow");
+    }
+
+    @Test
+    public void testConcurrentCreateOfSameEntity() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < threads; ++i) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        inventory.tenants().create("com.example.concurrent");
+                        created.incrementAndGet();
+                    } catch (IllegalArgumentException e) {
+                        //expected for all but one
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> f : results) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assert created.get() == 1;
+
+        inventory.tenants().delete("com.example.concurrent");
+    }
+
+    @Test
+    public void testEntityCache() throws Exception {
+        Resources.ReadWrite resources = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .resources();
+
+        Resource playroom1 = resources.get("playroom1").entity();
+        long hits = inventory.getEntityCacheStatistics().getHits();
+
+        playroom1.getProperties().put("name", "kitchen");
+
+        Resource cached = resources.get("playroom1").entity();
+        //the modifications of the returned entities don't leak into the cache
+        assert !cached.getProperties().containsKey("name");
+
+        resources.update(playroom1);
+        assert "kitchen".equals(resources.get("playroom1").entity().getProperties().get("name"));
+
+        //updating the resource type updates the type embedded in the cached resources
+        ResourceType rt = inventory.tenants().get("com.example.tenant").resourceTypes().get("Playroom").entity();
+        rt.getProperties().put("color", "blue");
+        inventory.tenants().get("com.example.tenant").resourceTypes().update(rt);
+
+        assert "blue".equals(resources.get("playroom1").entity().getType().getProperties().get("color"));
+
+        resources.create(new Resource.Blueprint("playroom3", rt));
+        assert resources.get("playroom3").entity() != null;
+        resources.delete("playroom3");
+        try {
+            resources.get("playroom3").entity();
+            Assert.fail("The deleted entity should not be served from the cache.");
+        } catch (EntityNotFoundException e) {
+            //expected
+        }
+
+        assertCacheHits(inventory.getEntityCacheStatistics(), hits);
+    }
+
+    @Test
+    public void testTypeDefinitions() throws Exception {
+        Tenants.Single tenant = inventory.tenants().get("com.example.tenant");
+        Resources.ReadWrite resources = tenant.environments().get("test").resources();
+
+        //make sure the definitions of the tenant are loaded before the new type is created
+        assert "Playroom".equals(resources.get("playroom1").entity().getType().getId());
+
+        ResourceType attic = tenant.resourceTypes().create(new ResourceType.Blueprint("Attic", new Version("1.0")))
+                .entity();
+
+        //the new type must be found even though the definitions of the tenant were loaded before it existed
+        resources.create(new Resource.Blueprint("attic1", attic));
+        assert "Attic".equals(resources.get("attic1").entity().getType().getId());
+
+        attic.getProperties().put("dusty", true);
+        tenant.resourceTypes().update(attic);
+
+        assert Boolean.TRUE.equals(resources.get("attic1").entity().getType().getProperties().get("dusty"));
+        assert resources.getAll(With.id("attic1")).entities().iterator().next().getType().getProperties()
+                .containsKey("dusty");
+
+        //the modifications of the returned types don't leak into the definitions
+        resources.get("attic1").entity().getType().getProperties().put("dusty", false);
+        assert Boolean.TRUE.equals(resources.get("attic1").entity().getType().getProperties().get("dusty"));
+
+        resources.delete("attic1");
+        tenant.resourceTypes().delete("Attic");
+
+        //an entity of a type that doesn't exist must not be created at all
+        try {
+            resources.create(new Resource.Blueprint("cellar1", new ResourceType("com.example.tenant", "Cellar",
+                    "1.0")));
+            Assert.fail("The resource of a nonexistent type should not be created.");
+        } catch (EntityNotFoundException e) {
+            assert e.getEntityType() == ResourceType.class;
+        }
+
+        assert resources.getAll(With.id("cellar1")).entities().isEmpty();
+    }
+
+    @Test
+    public void testQueryResultCache() throws Exception {
+        Tenants.Single tenant = inventory.tenants().get("com.example.tenant");
+        Resources.ReadWrite resources = tenant.environments().get("test").resources();
+
+        int count = resources.getAll().entities().size();
+        long hits = inventory.getQueryResultCacheStatistics().getHits();
+
+        assert resources.getAll().entities().size() == count;
+        assertCacheHits(inventory.getQueryResultCacheStatistics(), hits);
+
+        //the results of the queries on the tenant and the environment need to reflect the changes in them
+        int tenantCount = tenant.environments().getAll().resources().getAll().entities().size();
+
+        ResourceType rt = tenant.resourceTypes().get("Playroom").entity();
+        Resource playroom3 = resources.create(new Resource.Blueprint("playroom3", rt)).entity();
+
+        assert resources.getAll().entities().size() == count + 1;
+        assert tenant.environments().getAll().resources().getAll().entities().size() == tenantCount + 1;
+        assert resources.getAll(With.property("name", "attic")).entities().isEmpty();
+
+        playroom3.getProperties().put("name", "attic");
+        resources.update(playroom3);
+        assert resources.getAll(With.property("name", "attic")).entities().size() == 1;
+
+        //the values that only differ in their types must not share the results
+        playroom3.getProperties().put("floor", 80);
+        resources.update(playroom3);
+        assert resources.getAll(With.property("floor", 80)).entities().size() == 1;
+        assert resources.getAll(With.property("floor", "80")).entities().isEmpty();
+
+        //the types embedded in the results are updated, too
+        rt.getProperties().put("color", "green");
+        tenant.resourceTypes().update(rt);
+        assert "green".equals(resources.getAll(With.id("playroom3")).entities().iterator().next().getType()
+                .getProperties().get("color"));
+
+        resources.delete("playroom3");
+        assert resources.getAll().entities().size() == count;
+        assert tenant.environments().getAll().resources().getAll().entities().size() == tenantCount;
+
+        //the owned metrics are listed through the new and removed edges
+        Metrics.ReadRelate metrics = resources.get("playroom1").metrics();
+        int metricCount = metrics.getAll().entities().size();
+
+        metrics.add("playroom2_size");
+        assert metrics.getAll().entities().size() == metricCount + 1;
+
+        metrics.remove("playroom2_size");
+        assert metrics.getAll().entities().size() == metricCount;
+    }
+
+    @Test
+    public void testEntityIterator() throws Exception {
+        Resources.ReadWrite resources = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .resources();
+
+        Set<Resource> iterated = new HashSet<>();
+        resources.getAll().entityIterator().forEachRemaining(iterated::add);
+
+        assert !iterated.isEmpty();
+
+        //the exhausted iterator fills the query result cache
+        long hits = inventory.getQueryResultCacheStatistics().getHits();
+        assert iterated.equals(resources.getAll().entities());
+        assertCacheHits(inventory.getQueryResultCacheStatistics(), hits);
+
+        //no entity is returned twice
+        List<Environment> envs = new ArrayList<>();
+        inventory.tenants().getAll().environments().getAll().entityIterator().forEachRemaining(envs::add);
+        assert envs.size() == new HashSet<>(envs).size();
+        assert envs.size() == inventory.tenants().getAll().environments().getAll().entities().size();
+    }
+
+    @Test
+    public void testEdgeTargetTypesFilledIn() throws Exception {
+        //make the graph look like it was written before the edges had the target types
+        for (Edge e : graph.getEdges()) {
+            e.removeProperty("targetType");
+        }
+        for (Vertex v : graph.query().has("type", "inventoryMetadata").vertices()) {
+            v.removeProperty("edgeTargetTypes");
+        }
+        graph.commit();
+
+        inventory.close();
+        inventory = new InventoryService();
+        inventory.initialize(loadConfiguration());
+        graph = inventory.getGraph();
+
+        assert graph.query().has("type", "inventoryMetadata").vertices().iterator().next()
+                .getProperty("edgeTargetTypes").equals(true);
+
+        Resources.ReadWrite resources = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .resources();
+
+        assert resources.get("playroom1").entity() != null;
+        assert resources.getAll().entities().stream().anyMatch(r -> "playroom2".equals(r.getId()));
+    }
+
+    @Test
+    public void testMultiGet() throws Exception {
+        Resources.ReadWrite resources = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .resources();
+
+        Set<Resource> found = resources.get("playroom1", "playroom2", "nonexistent").entities();
+
+        assert found.size() == 2;
+        assert found.stream().anyMatch(r -> "playroom1".equals(r.getId()));
+        assert found.stream().anyMatch(r -> "playroom2".equals(r.getId()));
+
+        //the ids are only looked up under the current parent
+        assert inventory.tenants().get("com.acme.tenant").environments().get("production").resources()
+                .get("playroom1", "playroom2").entities().isEmpty();
+
+        assert inventory.tenants().get("com.example.tenant", "com.acme.tenant").entities().size() == 2;
+    }
+
     @Test
     public void queryMultipleTenants() throws Exception {
         Set<Tenant> tenants = inventory.tenants().getAll().entities();
@@ -816,6 +1420,47 @@ public class BasicTest {
         assert !f1.getId().equals(f2.getId());
     }
 
+    @Test
+    public void testMissingEntityCache() throws Exception {
+        Feeds.ReadAndRegister feeds = inventory.tenants().get("com.acme.tenant").environments().get("production")
+                .feeds();
+
+        long hits = inventory.getMissingEntityCacheStatistics().getHits();
+
+        for (int i = 0; i < 2; ++i) {
+            try {
+                feeds.get("probe").entity();
+                Assert.fail("The feed should not exist yet.");
+            } catch (EntityNotFoundException e) {
+                //expected
+            }
+        }
+
+        assertCacheHits(inventory.getMissingEntityCacheStatistics(), hits);
+
+        //the creation must not be prevented by the remembered miss and must make the feed visible
+        Feed feed = feeds.register("probe").entity();
+        assert "probe".equals(feed.getId());
+        assert "probe".equals(feeds.get("probe").entity().getId());
+
+        //a new relationship must make the remembered miss reachable, too
+        Metrics.ReadRelate metrics = inventory.tenants().get("com.example.tenant").environments().get("test")
+                .resources().get("playroom1").metrics();
+
+        for (int i = 0; i < 2; ++i) {
+            try {
+                metrics.get("playroom2_size").entity();
+                Assert.fail("The metric should not be owned by playroom1 yet.");
+            } catch (EntityNotFoundException e) {
+                //expected
+            }
+        }
+
+        metrics.add("playroom2_size");
+        assert "playroom2_size".equals(metrics.get("playroom2_size").entity().getId());
+        metrics.remove("playroom2_size");
+    }
+
     @Test
     public void testContainsLoopsImpossible() throws Exception {
         try {
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.spi;
+
+/**
+ * Describes what the graph provided by a {@link GraphProvider} is capable of so that the implementation can choose
+ * the best strategy for the graph at hand.
+ *
+ * @author agent
+ * @since 0.0.1
+ */
+public final class Capabilities {
+    private final boolean transactions;
+    private final boolean threadedTransactions;
+    private final boolean keyIndices;
+    private final boolean vertexCentricIndices;
+    private final boolean mixedIndices;
+    private final boolean batchLoading;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Capabilities(boolean transactions, boolean threadedTransactions, boolean keyIndices,
+            boolean vertexCentricIndices, boolean mixedIndices, boolean batchLoading) {
+        this.transactions = transactions;
+        this.threadedTransactions = threadedTransactions;
+        this.keyIndices = keyIndices;
+        this.vertexCentricIndices = vertexCentricIndices;
+        this.mixedIndices = mixedIndices;
+        this.batchLoading = batchLoading;
+    }
+
+    /**
+     * @return true if the changes can really be rolled back, false if commit and rollback are no-ops
+     */
+    public boolean isTransactions() {
+        return transactions;
+    }
+
+    /**
+     * @return true if the graph supports more concurrent transactions in a single thread (i.e. is a
+     * {@link com.tinkerpop.blueprints.ThreadedTransactionalGraph}).
+     */
+    public boolean isThreadedTransactions() {
+        return threadedTransactions;
+    }
+
+    /**
+     * @return true if the lookups by the properties defined in
+     * {@link GraphProvider#ensureIndices(com.tinkerpop.blueprints.TransactionalGraph, IndexSpec...)} are served from
+     * an index, false if they need to scan the graph
+     */
+    public boolean isKeyIndices() {
+        return keyIndices;
+    }
+
+    public boolean isVertexCentricIndices() {
+        return vertexCentricIndices;
+    }
+
+    /**
+     * @return true if the {@link IndexSpec#isMixed() mixed indices} are supported and the
+     * {@link GraphProvider#search(com.tinkerpop.blueprints.TransactionalGraph, TextQuery)} is served from them
+     */
+    public boolean isMixedIndices() {
+        return mixedIndices;
+    }
+
+    /**
+     * @return true if the graph can start transactions optimized for creating many elements at once, see
+     * {@link GraphProvider#startBatchTransaction(com.tinkerpop.blueprints.TransactionalGraph)}
+     */
+    public boolean isBatchLoading() {
+        return batchLoading;
+    }
+
+    @Override
+    public String toString() {
+        return "Capabilities[transactions=" + transactions + ",threadedTransactions=" + threadedTransactions +
+                ",keyIndices=" + keyIndices + ",vertexCentricIndices=" + vertexCentricIndices + ",mixedIndices=" +
+                mixedIndices + ",batchLoading=" + batchLoading + "]";
+    }
+
+    public static final class Builder {
+        private boolean transactions;
+        private boolean threadedTransactions;
+        private boolean keyIndices;
+        private boolean vertexCentricIndices;
+        private boolean mixedIndices;
+        private boolean batchLoading;
+
+        private Builder() {
+
+        }
+
+        public Builder withTransactions(boolean transactions) {
+            this.transactions = transactions;
+            return this;
+        }
+
+        public Builder withThreadedTransactions(boolean threadedTransactions) {
+            this.threadedTransactions = threadedTransactions;
+            return this;
+        }
+
+        public Builder withKeyIndices(boolean keyIndices) {
+            this.keyIndices = keyIndices;
+            return this;
+        }
+
+        public Builder withVertexCentricIndices(boolean vertexCentricIndices) {
+            this.vertexCentricIndices = vertexCentricIndices;
+            return this;
+        }
+
+        public Builder withMixedIndices(boolean mixedIndices) {
+            this.mixedIndices = mixedIndices;
+            return this;
+        }
+
+        public Builder withBatchLoading(boolean batchLoading) {
+            this.batchLoading = batchLoading;
+            return this;
+        }
+
+        public Capabilities build() {
+            return new Capabilities(transactions, threadedTransactions, keyIndices, vertexCentricIndices,
+                    mixedIndices, batchLoading);
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.hawkular.inventory.impl.tinkerpop.spi;
 
 import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
 import org.hawkular.inventory.api.Configuration;
 
 /**
@@ -39,6 +40,50 @@ public interface GraphProvider<G extends TransactionalGraph> {
      */
     G instantiateGraph(Configuration configuration);
 
+    /**
+     * Describes the capabilities of the graph so that the implementation can adapt its strategies to it.
+     *
+     * @param graph the graph instance (coming from the
+     * {@link #instantiateGraph(org.hawkular.inventory.api.Configuration)} call) to describe
+     *
+     * @return the capabilities of the graph
+     */
+    Capabilities getCapabilities(G graph);
+
+    /**
+     * Starts a new transaction that is independent of the transaction bound to the current thread. This is only
+     * called if the graph has {@link Capabilities#isThreadedTransactions() threaded transactions}.
+     *
+     * <p>The default implementation returns the graph itself, which is all the graphs without threaded transactions
+     * can offer.
+     *
+     * @param graph    the graph instance (coming from the
+     *                 {@link #instantiateGraph(org.hawkular.inventory.api.Configuration)} call) to start the
+     *                 transaction in
+     * @param readOnly whether the transaction is only going to read data. Graphs that don't support read-only
+     *                 transactions are free to ignore this
+     * @return the transaction, usable as a graph on its own
+     */
+    default TransactionalGraph startTransaction(G graph, boolean readOnly) {
+        return graph;
+    }
+
+    /**
+     * Starts a new transaction for creating many elements at once. The graph can trade the consistency checks for
+     * speed in such a transaction. This is only called if the graph has
+     * {@link Capabilities#isBatchLoading() batch loading}.
+     *
+     * <p>The default implementation starts an ordinary transaction.
+     *
+     * @param graph the graph instance (coming from the
+     *              {@link #instantiateGraph(org.hawkular.inventory.api.Configuration)} call) to start the transaction
+     *              in
+     * @return the transaction, usable as a graph on its own
+     */
+    default TransactionalGraph startBatchTransaction(G graph) {
+        return startTransaction(graph, false);
+    }
+
     /**
      * Makes sure all the indexes needed for good performance.
      *
@@ -51,4 +96,28 @@ public interface GraphProvider<G extends TransactionalGraph> {
      * @param indexSpecs the core set of indices to define
      */
     void ensureIndices(G graph, IndexSpec... indexSpecs);
+
+    /**
+     * Makes sure the vertex-centric indices exist, i.e. the indices on the edges incident with individual vertices.
+     *
+     * <p>Graph databases that don't support vertex-centric indices are free to ignore this call.
+     *
+     * @param graph the graph instance (coming from the
+     * {@link #instantiateGraph(org.hawkular.inventory.api.Configuration)} call) to index
+     *
+     * @param indexSpecs the vertex-centric indices to define
+     */
+    void ensureVertexCentricIndices(G graph, VertexCentricIndexSpec... indexSpecs);
+
+    /**
+     * Finds the vertices matching the text query. The graph providers are supposed to serve the query from the mixed
+     * indices if the graph supports them.
+     *
+     * @param graph the graph instance (coming from the
+     * {@link #instantiateGraph(org.hawkular.inventory.api.Configuration)} call) to search
+     *
+     * @param query the query to evaluate
+     * @return the vertices matching the query
+     */
+    Iterable<Vertex> search(G graph, TextQuery query);
 }
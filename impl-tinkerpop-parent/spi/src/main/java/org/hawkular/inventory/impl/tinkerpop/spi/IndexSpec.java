@@ -28,14 +28,20 @@ import java.util.Map;
 public final class IndexSpec {
     private final Map<String, Class<?>> properties;
     private final Class<? extends Element> elementType;
+    private final boolean mixed;
 
     public static Builder builder() {
         return new Builder();
     }
 
     public IndexSpec(Class<? extends Element> elementType, Map<String, Class<?>> properties) {
+        this(elementType, properties, false);
+    }
+
+    public IndexSpec(Class<? extends Element> elementType, Map<String, Class<?>> properties, boolean mixed) {
         this.elementType = elementType;
         this.properties = properties;
+        this.mixed = mixed;
     }
 
     public Class<? extends Element> getElementType() {
@@ -46,14 +52,26 @@ public final class IndexSpec {
         return properties;
     }
 
+    /**
+     * A mixed index can answer full-text, prefix and range queries on the properties, not just the equality lookups.
+     * Such indices are usually backed by an external search engine. The graph providers that don't support them
+     * are free to index the properties just for the equality lookups or not at all.
+     *
+     * @return true if this is a mixed index, false otherwise
+     */
+    public boolean isMixed() {
+        return mixed;
+    }
+
     @Override
     public String toString() {
-        return "IndexSpec[type=" + elementType.getSimpleName() + ",properties=" + properties + "]";
+        return "IndexSpec[type=" + elementType.getSimpleName() + ",properties=" + properties + ",mixed=" + mixed + "]";
     }
 
     public static final class Builder {
         private final Map<String, Class<?>> properties = new HashMap<>();
         private Class<? extends Element> elementType;
+        private boolean mixed;
 
         private Builder() {
 
@@ -69,8 +87,13 @@ public final class IndexSpec {
             return this;
         }
 
+        public Builder withMixed(boolean mixed) {
+            this.mixed = mixed;
+            return this;
+        }
+
         public IndexSpec build() {
-            return new IndexSpec(elementType, properties);
+            return new IndexSpec(elementType, properties, mixed);
         }
     }
 }
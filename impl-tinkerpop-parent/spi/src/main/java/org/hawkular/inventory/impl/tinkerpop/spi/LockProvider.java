@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.spi;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Provides the locks that serialize the conflicting modifications of the inventory, like the concurrent creation of
+ * 2 entities with the same id under the same parent.
+ *
+ * <p>The Tinkerpop implementation uses in-process locks by default. If an implementation of this interface is found
+ * using the {@link java.util.ServiceLoader}, it is used instead, which makes it possible to use locks shared by
+ * all the inventory instances in a cluster.
+ *
+ * @author agent
+ * @since 0.0.1
+ */
+public interface LockProvider {
+
+    /**
+     * Returns the lock for the provided key. The same lock must be returned for equal keys, the locks for different
+     * keys may or may not be the same.
+     *
+     * @param key the key identifying what is being modified
+     * @return the lock to hold during the modification
+     */
+    Lock getLock(String key);
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.spi;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Describes a search for the vertices with a property whose value starts with or contains a given text. The search is
+ * meant to be served from a mixed index (see {@link IndexSpec#isMixed()}) on the text property and the properties the
+ * vertices are additionally required to have given values of.
+ *
+ * @author agent
+ * @since 0.0.1
+ */
+public final class TextQuery {
+    private final Map<String, Object> requiredValues;
+    private final String property;
+    private final String text;
+    private final boolean prefix;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public TextQuery(Map<String, Object> requiredValues, String property, String text, boolean prefix) {
+        this.requiredValues = requiredValues;
+        this.property = property;
+        this.text = text;
+        this.prefix = prefix;
+    }
+
+    /**
+     * @return the properties the found vertices must have the given values of
+     */
+    public Map<String, Object> getRequiredValues() {
+        return requiredValues;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return true if the value of the property must start with the text, false if it must just contain it
+     */
+    public boolean isPrefix() {
+        return prefix;
+    }
+
+    /**
+     * A helper method for the providers that need to evaluate the query in memory.
+     *
+     * @param value the value of the property of some vertex
+     * @return true if the value matches this query, false otherwise
+     */
+    public boolean matches(Object value) {
+        if (!(value instanceof String)) {
+            return false;
+        }
+
+        String s = (String) value;
+        return prefix ? s.startsWith(text) : s.contains(text);
+    }
+
+    @Override
+    public String toString() {
+        return "TextQuery[requiredValues=" + requiredValues + ",property=" + property + ",text=" + text + ",prefix="
+                + prefix + "]";
+    }
+
+    public static final class Builder {
+        private final Map<String, Object> requiredValues = new LinkedHashMap<>();
+        private String property;
+        private String text;
+        private boolean prefix;
+
+        private Builder() {
+
+        }
+
+        public Builder withRequiredValue(String propertyName, Object value) {
+            requiredValues.put(propertyName, value);
+            return this;
+        }
+
+        public Builder withPrefix(String propertyName, String prefix) {
+            this.property = propertyName;
+            this.text = prefix;
+            this.prefix = true;
+            return this;
+        }
+
+        public Builder withSubstring(String propertyName, String text) {
+            this.property = propertyName;
+            this.text = text;
+            this.prefix = false;
+            return this;
+        }
+
+        public TextQuery build() {
+            if (property == null || text == null) {
+                throw new IllegalStateException("The text to search for not specified.");
+            }
+
+            return new TextQuery(requiredValues, property, text, prefix);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.spi;
+
+import com.tinkerpop.blueprints.Direction;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Describes an index on the edges of given label incident with a single vertex. Such indices help traversing from
+ * vertices with a large number of incident edges, because the edges can be looked up by their properties without
+ * iterating over all of them.
+ *
+ * <p>The order of the properties is significant - it defines the sort order of the edges in the index.
+ *
+ * @author agent
+ * @since 0.0.1
+ */
+public final class VertexCentricIndexSpec {
+    private final String edgeLabel;
+    private final Direction direction;
+    private final Map<String, Class<?>> properties;
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public VertexCentricIndexSpec(String edgeLabel, Direction direction, Map<String, Class<?>> properties) {
+        this.edgeLabel = edgeLabel;
+        this.direction = direction;
+        this.properties = properties;
+    }
+
+    public String getEdgeLabel() {
+        return edgeLabel;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public Map<String, Class<?>> getProperties() {
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "VertexCentricIndexSpec[label=" + edgeLabel + ",direction=" + direction + ",properties=" + properties
+                + "]";
+    }
+
+    public static final class Builder {
+        private final Map<String, Class<?>> properties = new LinkedHashMap<>();
+        private String edgeLabel;
+        private Direction direction = Direction.BOTH;
+
+        private Builder() {
+
+        }
+
+        public Builder withProperty(String propertyName, Class<?> propertyValueType) {
+            properties.put(propertyName, propertyValueType);
+            return this;
+        }
+
+        public Builder withEdgeLabel(String edgeLabel) {
+            this.edgeLabel = edgeLabel;
+            return this;
+        }
+
+        public Builder withDirection(Direction direction) {
+            this.direction = direction;
+            return this;
+        }
+
+        public VertexCentricIndexSpec build() {
+            return new VertexCentricIndexSpec(edgeLabel, direction, properties);
+        }
+    }
+}
@@ -16,13 +16,33 @@
  */
 package org.hawkular.inventory.impl.tinkerpop.provider;
 
+import com.tinkerpop.blueprints.Compare;
+import com.tinkerpop.blueprints.Contains;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.GraphQuery;
 import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
 import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import com.tinkerpop.blueprints.util.DefaultGraphQuery;
 import com.tinkerpop.blueprints.util.wrappers.wrapped.WrappedGraph;
 import org.apache.commons.configuration.MapConfiguration;
 import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.impl.tinkerpop.spi.Capabilities;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
+import org.hawkular.inventory.impl.tinkerpop.spi.TextQuery;
+import org.hawkular.inventory.impl.tinkerpop.spi.VertexCentricIndexSpec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
 
 /**
  * @author Lukas Krejci
@@ -34,15 +54,57 @@ public final class TinkerGraphProvider implements GraphProvider<TinkerGraphProvi
         return new WrappedTinkerGraph(new MapConfiguration(configuration.getImplementationConfiguration()));
     }
 
+    @Override
+    public Capabilities getCapabilities(WrappedTinkerGraph graph) {
+        return Capabilities.builder()
+                .withTransactions(false)
+                .withThreadedTransactions(false)
+                .withKeyIndices(true)
+                .withVertexCentricIndices(false)
+                .withMixedIndices(false).build();
+    }
+
     @Override
     public void ensureIndices(WrappedTinkerGraph graph, IndexSpec... indexSpecs) {
-        //don't bother with this for a demo graph
+        //the multi-key lookups are served by intersecting the key indices, see IndexedGraphQuery
+        TinkerGraph g = graph.getBaseGraph();
+        for (IndexSpec spec : indexSpecs) {
+            for (String key : spec.getProperties().keySet()) {
+                if (!g.getIndexedKeys(spec.getElementType()).contains(key)) {
+                    g.createKeyIndex(key, spec.getElementType());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void ensureVertexCentricIndices(WrappedTinkerGraph graph, VertexCentricIndexSpec... indexSpecs) {
+        //TinkerGraph doesn't support vertex-centric indices
+    }
+
+    @Override
+    public Iterable<Vertex> search(WrappedTinkerGraph graph, TextQuery query) {
+        //TinkerGraph is in memory anyway, so just go through the candidates
+        GraphQuery q = graph.query();
+
+        for (Map.Entry<String, Object> e : query.getRequiredValues().entrySet()) {
+            q.has(e.getKey(), e.getValue());
+        }
+
+        List<Vertex> ret = new ArrayList<>();
+        for (Vertex v : q.has(query.getProperty()).vertices()) {
+            if (query.matches(v.getProperty(query.getProperty()))) {
+                ret.add(v);
+            }
+        }
+
+        return ret;
     }
 
     static final class WrappedTinkerGraph extends WrappedGraph<TinkerGraph> implements TransactionalGraph {
 
         public WrappedTinkerGraph(org.apache.commons.configuration.Configuration configuration) {
-            super(new TinkerGraph(configuration));
+            super(new IndexedTinkerGraph(configuration));
         }
 
         @Override
@@ -59,4 +121,138 @@ public final class TinkerGraphProvider implements GraphProvider<TinkerGraphProvi
         }
     }
 
+    /**
+     * TinkerGraph only uses the key index of one of the keys a query filters on. This makes it use the key indices of
+     * all of them.
+     */
+    private static final class IndexedTinkerGraph extends TinkerGraph {
+
+        IndexedTinkerGraph(org.apache.commons.configuration.Configuration configuration) {
+            super(configuration);
+        }
+
+        @Override
+        public GraphQuery query() {
+            return new IndexedGraphQuery(this);
+        }
+    }
+
+    /**
+     * If the query filters on the equality of more than one indexed key, the candidate elements are looked up in the
+     * key indices of all of them in lock-step. The first index that runs out of the elements gives the candidates,
+     * which are then checked against all the conditions of the query. This makes the lookups like type + uid run in
+     * time proportional to the size of the smallest index bucket (i.e. the number of elements with the uid), instead
+     * of the number of all the elements of the type.
+     *
+     * <p>A condition on an indexed key being one of several values is served by the union of the index buckets of the
+     * values, which TinkerGraph itself wouldn't use the index for at all.
+     */
+    static final class IndexedGraphQuery extends DefaultGraphQuery {
+        private final TinkerGraph graph;
+
+        IndexedGraphQuery(TinkerGraph graph) {
+            super(graph);
+            this.graph = graph;
+        }
+
+        @Override
+        public Iterable<Edge> edges() {
+            Iterable<Edge> ret = lookup(Edge.class, graph::getEdges);
+            return ret == null ? super.edges() : ret;
+        }
+
+        @Override
+        public Iterable<Vertex> vertices() {
+            Iterable<Vertex> ret = lookup(Vertex.class, graph::getVertices);
+            return ret == null ? super.vertices() : ret;
+        }
+
+        private <T extends Element> Iterable<T> lookup(Class<T> elementType,
+                BiFunction<String, Object, Iterable<T>> index) {
+
+            Set<String> indexedKeys = graph.getIndexedKeys(elementType);
+
+            List<Iterator<T>> buckets = new ArrayList<>();
+            boolean hasUnion = false;
+            for (HasContainer hc : hasContainers) {
+                if (!indexedKeys.contains(hc.key)) {
+                    continue;
+                }
+
+                if (hc.predicate == Compare.EQUAL) {
+                    buckets.add(index.apply(hc.key, hc.value).iterator());
+                } else if (hc.predicate == Contains.IN && hc.value instanceof Collection) {
+                    buckets.add(union(hc.key, (Collection<?>) hc.value, index));
+                    hasUnion = true;
+                }
+            }
+
+            if (buckets.size() < 2 && !hasUnion) {
+                //TinkerGraph handles this just fine
+                return null;
+            }
+
+            List<List<T>> seen = new ArrayList<>();
+            buckets.forEach(b -> seen.add(new ArrayList<>()));
+
+            List<T> candidates = null;
+            while (candidates == null) {
+                for (int i = 0; i < buckets.size(); ++i) {
+                    if (!buckets.get(i).hasNext()) {
+                        candidates = seen.get(i);
+                        break;
+                    }
+
+                    seen.get(i).add(buckets.get(i).next());
+                }
+            }
+
+            List<T> ret = new ArrayList<>();
+            for (T e : candidates) {
+                if (ret.size() >= limit) {
+                    break;
+                }
+
+                boolean legal = true;
+                for (HasContainer hc : hasContainers) {
+                    legal &= hc.isLegal(e);
+                }
+
+                if (legal) {
+                    ret.add(e);
+                }
+            }
+
+            return ret;
+        }
+
+        /**
+         * The buckets of the distinct values don't overlap, because an element has a single value of the key.
+         */
+        private static <T extends Element> Iterator<T> union(String key, Collection<?> values,
+                BiFunction<String, Object, Iterable<T>> index) {
+
+            Iterator<?> valueIt = new LinkedHashSet<>(values).iterator();
+
+            return new Iterator<T>() {
+                private Iterator<T> current = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!current.hasNext() && valueIt.hasNext()) {
+                        current = index.apply(key, valueIt.next()).iterator();
+                    }
+
+                    return current.hasNext();
+                }
+
+                @Override
+                public T next() {
+                    hasNext();
+                    return current.next();
+                }
+            };
+        }
+    }
+
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.impl.tinkerpop.provider;
+
+import com.tinkerpop.blueprints.Contains;
+import com.tinkerpop.blueprints.Vertex;
+import com.tinkerpop.blueprints.impls.tg.TinkerGraph;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @author agent
+ * @since 0.0.1
+ */
+public class TinkerGraphProviderTest {
+
+    @Test
+    public void testContainsInServedByIndex() throws Exception {
+        CountingGraph graph = new CountingGraph();
+        graph.createKeyIndex("uid", Vertex.class);
+
+        for (int i = 0; i < 100; ++i) {
+            Vertex v = graph.addVertex(null);
+            v.setProperty("uid", "v" + i);
+            v.setProperty("parity", i % 2 == 0 ? "even" : "odd");
+        }
+
+        graph.scanForbidden = true;
+
+        Set<String> found = new HashSet<>();
+        new TinkerGraphProvider.IndexedGraphQuery(graph).has("uid", Contains.IN, Arrays.asList("v1", "v2", "v3",
+                "v1", "nonexistent")).vertices().forEach(v -> found.add(v.getProperty("uid")));
+
+        assert found.equals(new HashSet<>(Arrays.asList("v1", "v2", "v3"))) : "Unexpected vertices found: " + found;
+        assert graph.indexLookups == 4 : "Each distinct value should be looked up in the index exactly once.";
+
+        //the other conditions are still applied to the candidates from the index
+        found.clear();
+        new TinkerGraphProvider.IndexedGraphQuery(graph).has("uid", Contains.IN, Arrays.asList("v1", "v2", "v3"))
+                .has("parity", "odd").vertices().forEach(v -> found.add(v.getProperty("uid")));
+
+        assert found.equals(new HashSet<>(Arrays.asList("v1", "v3"))) : "Unexpected vertices found: " + found;
+    }
+
+    private static final class CountingGraph extends TinkerGraph {
+        boolean scanForbidden;
+        int indexLookups;
+
+        @Override
+        public Iterable<Vertex> getVertices() {
+            assert !scanForbidden : "All the vertices were scanned instead of using the index.";
+            return super.getVertices();
+        }
+
+        @Override
+        public Iterable<Vertex> getVertices(String key, Object value) {
+            if (scanForbidden) {
+                indexLookups++;
+            }
+            return super.getVertices(key, value);
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.hawkular.inventory.impl.tinkerpop.provider;
 
 import org.jboss.logging.Logger;
+import org.jboss.logging.annotations.Cause;
 import org.jboss.logging.annotations.LogMessage;
 import org.jboss.logging.annotations.Message;
 import org.jboss.logging.annotations.MessageLogger;
@@ -42,5 +43,18 @@ public interface Log {
     @LogMessage(level = Logger.Level.INFO)
     @Message(id = 1502, value = "Waiting for the index '%s' to become registered.")
     void iWaitingForIndexRegistration(String indexName);
-}
 
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 1503, value = "No index backend configured in Titan. The mixed index '%s' will not be created and" +
+            " the searches will have to iterate over all the vertices.")
+    void wNoIndexBackend(String indexName);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 1504, value = "Re-indexing of Titan database index '%s' failed. The queries will not use the index.")
+    void wReindexingFailed(String indexName, @Cause Throwable cause);
+
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 1505, value = "Re-indexing of Titan database index '%s' didn't finish in %dms. It will continue in" +
+            " the background and the queries will not use the index until it is finished.")
+    void wReindexingContinuesInBackground(String indexName, long timeoutInMillis);
+}
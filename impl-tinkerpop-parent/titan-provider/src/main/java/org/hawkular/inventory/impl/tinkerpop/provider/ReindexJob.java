@@ -0,0 +1,348 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.provider;
+
+import com.thinkaurelius.titan.core.EdgeLabel;
+import com.thinkaurelius.titan.core.PropertyKey;
+import com.thinkaurelius.titan.core.RelationType;
+import com.thinkaurelius.titan.core.TitanException;
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.TitanTransaction;
+import com.thinkaurelius.titan.core.schema.ConsistencyModifier;
+import com.thinkaurelius.titan.core.schema.RelationTypeIndex;
+import com.thinkaurelius.titan.core.schema.SchemaAction;
+import com.thinkaurelius.titan.core.schema.SchemaStatus;
+import com.thinkaurelius.titan.core.schema.TitanGraphIndex;
+import com.thinkaurelius.titan.core.schema.TitanIndex;
+import com.thinkaurelius.titan.core.schema.TitanManagement;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.Vertex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A job bringing an index that was created on an already populated graph to the {@link SchemaStatus#ENABLED}
+ * state.
+ *
+ * <p>Titan only updates a new index with the subsequent modifications of the data. The elements that existed before
+ * the index was created are not covered by it and so Titan doesn't enable such index by itself. The
+ * {@link SchemaAction#REINDEX} action of Titan 0.5 needs a Titan-Hadoop job, so this job back-fills the index locally
+ * instead. It waits for the index to become registered with all the Titan instances, re-writes the indexed properties
+ * of the existing elements (which makes Titan update the index with them) in small transactions and enables the index
+ * afterwards. Both the graph indices and the vertex-centric indices of the edge labels are supported.
+ *
+ * <p>The re-written properties use the {@link ConsistencyModifier#LOCK} consistency for the duration of the job. A
+ * batch that would overwrite a value concurrently modified by someone else therefore fails to commit instead of
+ * restoring the stale value, and is retried with the fresh values. The original consistency is restored when the job
+ * finishes.
+ *
+ * <p>The job can also resume the indices left in the {@link SchemaStatus#INSTALLED} or {@link SchemaStatus#REGISTERED}
+ * state by an interrupted previous run.
+ *
+ * @author agent
+ * @since 0.0.1
+ */
+public final class ReindexJob implements Runnable {
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_BATCH_ATTEMPTS = 10;
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    private final TitanGraph graph;
+    private final String edgeLabel;
+    private final String indexName;
+    private final long statusTimeoutMillis;
+    private final AtomicLong processedElements = new AtomicLong();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile SchemaStatus status;
+    private volatile Exception failure;
+
+    /**
+     * @param graph               the graph with the index
+     * @param edgeLabel           the edge label of a vertex-centric index or null for a graph index
+     * @param indexName           the name of the index
+     * @param statusTimeoutMillis how long to wait for the index to reach the expected statuses
+     */
+    ReindexJob(TitanGraph graph, String edgeLabel, String indexName, long statusTimeoutMillis) {
+        this.graph = graph;
+        this.edgeLabel = edgeLabel;
+        this.indexName = indexName;
+        this.statusTimeoutMillis = statusTimeoutMillis;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    /**
+     * @return the edge label of the vertex-centric index or null if this job re-indexes a graph index
+     */
+    public String getEdgeLabel() {
+        return edgeLabel;
+    }
+
+    /**
+     * @return the number of the elements re-written in the index so far
+     */
+    public long getProcessedElements() {
+        return processedElements.get();
+    }
+
+    /**
+     * @return the last seen status of the index or null if it hasn't been read yet
+     */
+    public SchemaStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the exception the job failed with or null if it didn't fail (yet)
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    public boolean isDone() {
+        return finished.getCount() == 0;
+    }
+
+    /**
+     * Waits for the job to finish.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of the timeout
+     * @return true if the job finished, false if the timeout elapsed before that
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    @Override
+    public void run() {
+        long start = System.currentTimeMillis();
+        Log.LOG.iReindexing(indexName);
+
+        try {
+            if (readStatus() == SchemaStatus.INSTALLED) {
+                //the previous run might have been interrupted before the registration was requested
+                updateIndex(SchemaAction.REGISTER_INDEX);
+            }
+
+            Log.LOG.iWaitingForIndexRegistration(indexName);
+            if (awaitStatus(SchemaStatus.REGISTERED, SchemaStatus.ENABLED) == SchemaStatus.REGISTERED) {
+                Map<String, ConsistencyModifier> originalConsistency = setConsistency(null);
+                try {
+                    reindexExistingElements(new ArrayList<>(originalConsistency.keySet()));
+                } finally {
+                    setConsistency(originalConsistency);
+                }
+
+                updateIndex(SchemaAction.ENABLE_INDEX);
+                awaitStatus(SchemaStatus.ENABLED);
+            }
+
+            Log.LOG.iReindexingFinished(indexName, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            failure = e;
+            Log.LOG.wReindexingFailed(indexName, e);
+        } finally {
+            finished.countDown();
+        }
+    }
+
+    private void reindexExistingElements(List<String> keys) throws InterruptedException {
+        boolean vertices;
+        TitanManagement mgmt = graph.getManagementSystem();
+        try {
+            TitanIndex index = getIndex(mgmt);
+            vertices = index instanceof TitanGraphIndex
+                    && Vertex.class.isAssignableFrom(((TitanGraphIndex) index).getIndexedElement());
+        } finally {
+            mgmt.rollback();
+        }
+
+        //the elements are listed in a separate transaction, so that the batches can be committed during the scan
+        TitanTransaction scan = graph.buildTransaction().readOnly().start();
+        try {
+            Iterable<? extends Element> elements = vertices ? scan.getVertices() : scan.getEdges();
+
+            List<Object> batch = new ArrayList<>(BATCH_SIZE);
+            for (Element e : elements) {
+                if (edgeLabel == null || edgeLabel.equals(((Edge) e).getLabel())) {
+                    batch.add(e.getId());
+                }
+
+                if (batch.size() == BATCH_SIZE) {
+                    reindexBatch(batch, vertices, keys);
+                    batch.clear();
+                }
+            }
+
+            reindexBatch(batch, vertices, keys);
+        } finally {
+            scan.rollback();
+        }
+    }
+
+    /**
+     * Re-writes the values of the keys in the elements with the provided ids in a single transaction. If the commit
+     * fails because of a concurrent modification of the same properties, the batch is retried with the fresh values.
+     */
+    private void reindexBatch(List<Object> ids, boolean vertices, List<String> keys) throws InterruptedException {
+        for (int attempt = 1; ; ++attempt) {
+            try {
+                for (Object id : ids) {
+                    Element e = vertices ? graph.getVertex(id) : graph.getEdge(id);
+                    if (e == null) {
+                        //removed in the meantime
+                        continue;
+                    }
+
+                    for (String key : keys) {
+                        Object value = e.getProperty(key);
+                        if (value != null) {
+                            //removing the value first makes sure Titan doesn't optimize the update away
+                            e.removeProperty(key);
+                            e.setProperty(key, value);
+                        }
+                    }
+                }
+
+                graph.commit();
+                processedElements.addAndGet(ids.size());
+                return;
+            } catch (TitanException e) {
+                graph.rollback();
+                if (attempt == MAX_BATCH_ATTEMPTS) {
+                    throw e;
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (RuntimeException e) {
+                graph.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Sets the consistency of the keys of the index.
+     *
+     * @param consistency the consistency of the individual keys or null to lock all of them
+     * @return the original consistency of the keys
+     */
+    private Map<String, ConsistencyModifier> setConsistency(Map<String, ConsistencyModifier> consistency) {
+        Map<String, ConsistencyModifier> original = new HashMap<>();
+
+        TitanManagement mgmt = graph.getManagementSystem();
+        try {
+            for (RelationType key : getKeys(getIndex(mgmt))) {
+                original.put(key.getName(), mgmt.getConsistency(key));
+                mgmt.setConsistency(key, consistency == null ? ConsistencyModifier.LOCK
+                        : consistency.get(key.getName()));
+            }
+            mgmt.commit();
+        } catch (RuntimeException e) {
+            mgmt.rollback();
+            throw e;
+        }
+
+        return original;
+    }
+
+    private void updateIndex(SchemaAction action) {
+        TitanManagement mgmt = graph.getManagementSystem();
+        try {
+            mgmt.updateIndex(getIndex(mgmt), action);
+            mgmt.commit();
+        } catch (RuntimeException e) {
+            mgmt.rollback();
+            throw e;
+        }
+    }
+
+    private TitanIndex getIndex(TitanManagement mgmt) {
+        if (edgeLabel == null) {
+            return mgmt.getGraphIndex(indexName);
+        }
+
+        EdgeLabel label = mgmt.getEdgeLabel(edgeLabel);
+        return mgmt.getRelationIndex(label, indexName);
+    }
+
+    private static List<? extends RelationType> getKeys(TitanIndex index) {
+        if (index instanceof TitanGraphIndex) {
+            return Arrays.asList(((TitanGraphIndex) index).getFieldKeys());
+        } else {
+            return Arrays.asList(((RelationTypeIndex) index).getSortKey());
+        }
+    }
+
+    private SchemaStatus readStatus() {
+        TitanManagement mgmt = graph.getManagementSystem();
+        try {
+            TitanIndex index = getIndex(mgmt);
+
+            SchemaStatus current = null;
+            if (index instanceof TitanGraphIndex) {
+                //the index is in the status if all its keys are
+                for (PropertyKey k : ((TitanGraphIndex) index).getFieldKeys()) {
+                    SchemaStatus s = ((TitanGraphIndex) index).getIndexStatus(k);
+                    if (current == null || s.ordinal() < current.ordinal()) {
+                        current = s;
+                    }
+                }
+            } else {
+                current = ((RelationTypeIndex) index).getIndexStatus();
+            }
+
+            status = current;
+            return current;
+        } finally {
+            mgmt.rollback();
+        }
+    }
+
+    private SchemaStatus awaitStatus(SchemaStatus... expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + statusTimeoutMillis;
+
+        while (true) {
+            readStatus();
+
+            for (SchemaStatus s : expected) {
+                if (s == status) {
+                    return status;
+                }
+            }
+
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Index '" + indexName + "' didn't reach any of the statuses " +
+                        Arrays.toString(expected) + " in " + statusTimeoutMillis + "ms. Its status is " +
+                        status + ".");
+            }
+
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+}
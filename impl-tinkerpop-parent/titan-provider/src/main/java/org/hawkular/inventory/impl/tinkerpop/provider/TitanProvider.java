@@ -16,26 +16,118 @@
  */
 package org.hawkular.inventory.impl.tinkerpop.provider;
 
+import com.thinkaurelius.titan.core.EdgeLabel;
+import com.thinkaurelius.titan.core.Order;
 import com.thinkaurelius.titan.core.PropertyKey;
 import com.thinkaurelius.titan.core.TitanFactory;
 import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.attribute.Text;
+import com.thinkaurelius.titan.core.schema.Mapping;
+import com.thinkaurelius.titan.core.schema.RelationTypeIndex;
+import com.thinkaurelius.titan.core.schema.SchemaStatus;
+import com.thinkaurelius.titan.core.schema.TitanGraphIndex;
 import com.thinkaurelius.titan.core.schema.TitanManagement;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Element;
+import com.tinkerpop.blueprints.GraphQuery;
+import com.tinkerpop.blueprints.TransactionalGraph;
+import com.tinkerpop.blueprints.Vertex;
 import org.apache.commons.configuration.MapConfiguration;
 import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.impl.tinkerpop.spi.Capabilities;
 import org.hawkular.inventory.impl.tinkerpop.spi.GraphProvider;
 import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
+import org.hawkular.inventory.impl.tinkerpop.spi.TextQuery;
+import org.hawkular.inventory.impl.tinkerpop.spi.VertexCentricIndexSpec;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * @author Lukas Krejci
  * @since 0.0.1
  */
 public class TitanProvider implements GraphProvider<TitanGraph> {
+    private static final Pattern INDEX_BACKEND_KEY = Pattern.compile("index\\.([^.]+)\\.backend");
+    private static final String REGEX_SPECIAL_CHARS = ".?+*|{}[]()\"\\#@&<>~^$";
+
+    /**
+     * The configuration property with the maximum number of milliseconds to wait for the re-indexing jobs started
+     * by {@link #ensureIndices(TitanGraph, IndexSpec...)} to finish. The jobs continue in the background after that.
+     */
+    public static final String REINDEX_TIMEOUT_PROPERTY = "hawkular.inventory.titan.reindex.timeout";
+    private static final long DEFAULT_REINDEX_TIMEOUT_MILLIS = 30_000;
+
+    /**
+     * How long a re-indexing job waits for the index to be registered with all the Titan instances in the cluster
+     */
+    private static final long INDEX_REGISTRATION_TIMEOUT_MILLIS = 600_000;
+
+    /**
+     * The name of the index backend configured in Titan that the mixed indices are built in
+     */
+    private String mixedIndexBackend;
+
+    private long reindexTimeoutMillis = DEFAULT_REINDEX_TIMEOUT_MILLIS;
+
+    private final Map<String, ReindexJob> reindexJobs = new ConcurrentHashMap<>();
+
+    private final ExecutorService reindexExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Titan re-indexing");
+        t.setDaemon(true);
+        return t;
+    });
+
     @Override
     public TitanGraph instantiateGraph(Configuration configuration) {
-        return TitanFactory.open(new MapConfiguration(configuration.getImplementationConfiguration()));
+        Map<String, String> titanConfiguration = new HashMap<>(configuration.getImplementationConfiguration());
+
+        String reindexTimeout = titanConfiguration.remove(REINDEX_TIMEOUT_PROPERTY);
+        if (reindexTimeout != null) {
+            reindexTimeoutMillis = Long.parseLong(reindexTimeout);
+        }
+
+        for (String key : titanConfiguration.keySet()) {
+            Matcher m = INDEX_BACKEND_KEY.matcher(key);
+            if (m.matches()) {
+                mixedIndexBackend = m.group(1);
+                break;
+            }
+        }
+
+        return TitanFactory.open(new MapConfiguration(titanConfiguration));
+    }
+
+    @Override
+    public Capabilities getCapabilities(TitanGraph graph) {
+        return Capabilities.builder()
+                .withTransactions(true)
+                .withThreadedTransactions(true)
+                .withKeyIndices(true)
+                .withVertexCentricIndices(true)
+                .withMixedIndices(mixedIndexBackend != null)
+                .withBatchLoading(true).build();
+    }
+
+    @Override
+    public TransactionalGraph startTransaction(TitanGraph graph, boolean readOnly) {
+        return readOnly ? graph.buildTransaction().readOnly().start() : graph.newTransaction();
+    }
+
+    @Override
+    public TransactionalGraph startBatchTransaction(TitanGraph graph) {
+        //skips the consistency checks and the locking, the callers only create edges between existing vertices
+        return graph.buildTransaction().enableBatchLoading().start();
     }
 
     @Override
@@ -47,7 +139,7 @@ public class TitanProvider implements GraphProvider<TitanGraph> {
         TitanManagement mgmt = graph.getManagementSystem();
 
         for (IndexSpec spec : indexSpecs) {
-            String indexName = getIndexName(spec.getProperties().keySet());
+            String indexName = getIndexName(spec);
             if (mgmt.getGraphIndex(indexName) == null) {
                 undefinedIndices.put(indexName, spec);
             }
@@ -79,18 +171,196 @@ public class TitanProvider implements GraphProvider<TitanGraph> {
         for(Map.Entry<String, IndexSpec> e : undefinedIndices.entrySet()) {
             TitanManagement.IndexBuilder bld = mgmt.buildIndex(e.getKey(), e.getValue().getElementType());
 
-            for (String k : e.getValue().getProperties().keySet()) {
-                bld.addKey(definedPropertyKeys.get(k));
+            if (e.getValue().isMixed()) {
+                if (mixedIndexBackend == null) {
+                    Log.LOG.wNoIndexBackend(e.getKey());
+                    continue;
+                }
+
+                for (Map.Entry<String, Class<?>> p : e.getValue().getProperties().entrySet()) {
+                    if (String.class.equals(p.getValue())) {
+                        //index the strings as a whole so that they can be searched by prefixes and regexes
+                        bld.addKey(definedPropertyKeys.get(p.getKey()), Mapping.STRING.getParameter());
+                    } else {
+                        bld.addKey(definedPropertyKeys.get(p.getKey()));
+                    }
+                }
+
+                bld.buildMixedIndex(mixedIndexBackend);
+            } else {
+                for (String k : e.getValue().getProperties().keySet()) {
+                    bld.addKey(definedPropertyKeys.get(k));
+                }
+
+                bld.buildCompositeIndex();
+            }
+        }
+
+        mgmt.commit();
+
+        //the new indices as well as the ones that a previous run didn't manage to enable
+        List<ReindexJob> jobs = new ArrayList<>();
+        mgmt = graph.getManagementSystem();
+        try {
+            for (Class<? extends Element> type : Arrays.asList(Vertex.class, Edge.class)) {
+                for (TitanGraphIndex index : mgmt.getGraphIndexes(type)) {
+                    boolean enabled = true;
+                    boolean disabled = false;
+                    for (PropertyKey k : index.getFieldKeys()) {
+                        enabled &= index.getIndexStatus(k) == SchemaStatus.ENABLED;
+                        disabled |= index.getIndexStatus(k) == SchemaStatus.DISABLED;
+                    }
+
+                    //the disabled indices are disabled on purpose, not our business
+                    if (!enabled && !disabled) {
+                        newReindexJob(graph, null, index.getName(), jobs);
+                    }
+                }
+            }
+        } finally {
+            mgmt.rollback();
+        }
+
+        reindex(jobs);
+    }
+
+    /**
+     * The re-indexing jobs started for the indices created on the existing data. The finished jobs are kept in the
+     * map so that their outcome can be inspected.
+     *
+     * @return the map of the re-indexing jobs keyed by the index names
+     */
+    public Map<String, ReindexJob> getReindexJobs() {
+        return Collections.unmodifiableMap(reindexJobs);
+    }
+
+    /**
+     * Adds a new re-indexing job for the index to the list unless the index is being re-indexed already.
+     */
+    private void newReindexJob(TitanGraph graph, String edgeLabel, String indexName, List<ReindexJob> jobs) {
+        ReindexJob running = reindexJobs.get(indexName);
+        if (running == null || running.isDone()) {
+            ReindexJob job = new ReindexJob(graph, edgeLabel, indexName, INDEX_REGISTRATION_TIMEOUT_MILLIS);
+            reindexJobs.put(indexName, job);
+            jobs.add(job);
+        }
+    }
+
+    /**
+     * Starts the re-indexing jobs and waits for them at most the configured timeout.
+     */
+    private void reindex(List<ReindexJob> jobs) {
+        jobs.forEach(reindexExecutor::execute);
+
+        long deadline = System.currentTimeMillis() + reindexTimeoutMillis;
+        for (ReindexJob job : jobs) {
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                if (!job.await(remaining, TimeUnit.MILLISECONDS)) {
+                    Log.LOG.wReindexingContinuesInBackground(job.getIndexName(), reindexTimeoutMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void ensureVertexCentricIndices(TitanGraph graph, VertexCentricIndexSpec... indexSpecs) {
+        TitanManagement mgmt = graph.getManagementSystem();
+
+        for (VertexCentricIndexSpec spec : indexSpecs) {
+            EdgeLabel label = mgmt.getEdgeLabel(spec.getEdgeLabel());
+            if (label == null) {
+                label = mgmt.makeEdgeLabel(spec.getEdgeLabel()).make();
+            }
+
+            String indexName = getIndexName(spec.getEdgeLabel() + "_by", spec.getProperties().keySet());
+            if (mgmt.containsRelationIndex(label, indexName)) {
+                continue;
             }
 
-            bld.buildCompositeIndex();
+            PropertyKey[] sortKeys = new PropertyKey[spec.getProperties().size()];
+            int i = 0;
+            for (Map.Entry<String, Class<?>> p : spec.getProperties().entrySet()) {
+                PropertyKey key = mgmt.getPropertyKey(p.getKey());
+                if (key == null) {
+                    key = mgmt.makePropertyKey(p.getKey()).dataType(p.getValue()).make();
+                } else if (!key.getDataType().equals(p.getValue())) {
+                    throw new IllegalStateException("There already is a key '" + key.getName() +
+                            "' that would be needed for index " + spec + ". The key has a different data type" +
+                            " than expected, though. Expected: '" + p.getValue() + "', actual: '" +
+                            key.getDataType() + "'.");
+                }
+                sortKeys[i++] = key;
+            }
+
+            mgmt.buildEdgeIndex(label, indexName, spec.getDirection(), Order.DEFAULT, sortKeys);
         }
 
         mgmt.commit();
+
+        //the index of a label that already has edges needs to be re-indexed, just like the graph indices
+        List<ReindexJob> jobs = new ArrayList<>();
+        mgmt = graph.getManagementSystem();
+        try {
+            for (VertexCentricIndexSpec spec : indexSpecs) {
+                String indexName = getIndexName(spec.getEdgeLabel() + "_by", spec.getProperties().keySet());
+                RelationTypeIndex index = mgmt.getRelationIndex(mgmt.getEdgeLabel(spec.getEdgeLabel()), indexName);
+
+                SchemaStatus status = index.getIndexStatus();
+                if (status != SchemaStatus.ENABLED && status != SchemaStatus.DISABLED) {
+                    newReindexJob(graph, spec.getEdgeLabel(), indexName, jobs);
+                }
+            }
+        } finally {
+            mgmt.rollback();
+        }
+
+        reindex(jobs);
+    }
+
+    @Override
+    public Iterable<Vertex> search(TitanGraph graph, TextQuery query) {
+        //Titan picks up the mixed index by itself when it sees the text predicates
+        GraphQuery q = graph.query();
+
+        for (Map.Entry<String, Object> e : query.getRequiredValues().entrySet()) {
+            q.has(e.getKey(), e.getValue());
+        }
+
+        if (query.isPrefix()) {
+            q.has(query.getProperty(), Text.PREFIX, query.getText());
+        } else {
+            q.has(query.getProperty(), Text.REGEX, ".*" + escapeRegex(query.getText()) + ".*");
+        }
+
+        return q.vertices();
+    }
+
+    private String getIndexName(IndexSpec spec) {
+        //the vertex indices were named just by the properties before edge indices were introduced
+        String prefix = spec.isMixed() ? "search_by"
+                : (Edge.class.isAssignableFrom(spec.getElementType()) ? "edges_by" : "by");
+        return getIndexName(prefix, spec.getProperties().keySet());
+    }
+
+    private static String escapeRegex(String text) {
+        StringBuilder bld = new StringBuilder();
+
+        for (char c : text.toCharArray()) {
+            if (REGEX_SPECIAL_CHARS.indexOf(c) >= 0) {
+                bld.append('\\');
+            }
+            bld.append(c);
+        }
+
+        return bld.toString();
     }
 
-    private String getIndexName(Iterable<String> propertyNames) {
-        StringBuilder bld = new StringBuilder("by");
+    private String getIndexName(String prefix, Iterable<String> propertyNames) {
+        StringBuilder bld = new StringBuilder(prefix);
 
         for (String propertyName : propertyNames) {
             bld.append("_").append(propertyName);
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.hawkular.inventory.impl.tinkerpop.provider;
+
+import com.thinkaurelius.titan.core.TitanGraph;
+import com.thinkaurelius.titan.core.schema.SchemaStatus;
+import com.thinkaurelius.titan.core.schema.TitanManagement;
+import com.tinkerpop.blueprints.Direction;
+import com.tinkerpop.blueprints.Edge;
+import com.tinkerpop.blueprints.Vertex;
+import org.hawkular.inventory.api.Configuration;
+import org.hawkular.inventory.impl.tinkerpop.spi.IndexSpec;
+import org.hawkular.inventory.impl.tinkerpop.spi.VertexCentricIndexSpec;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author agent
+ * @since 0.0.1
+ */
+public class TitanProviderTest {
+
+    @Test
+    public void testIndicesCreatedOnPopulatedGraphEnabled() throws Exception {
+        TitanProvider provider = new TitanProvider();
+        TitanGraph graph = provider.instantiateGraph(Configuration.builder()
+                .addConfigurationProperty("storage.backend", "inmemory").build());
+
+        try {
+            TitanManagement mgmt = graph.getManagementSystem();
+            mgmt.makePropertyKey("kachna").dataType(String.class).make();
+            mgmt.makePropertyKey("uid").dataType(String.class).make();
+            mgmt.commit();
+
+            Vertex previous = null;
+            for (int i = 0; i < 100; ++i) {
+                Vertex v = graph.addVertex(null);
+                v.setProperty("kachna", "k" + i);
+
+                if (previous != null) {
+                    Edge e = previous.addEdge("contains", v);
+                    e.setProperty("uid", "e" + i);
+                }
+                previous = v;
+            }
+            graph.commit();
+
+            provider.ensureIndices(graph, IndexSpec.builder().withElementType(Vertex.class)
+                    .withProperty("kachna", String.class).build());
+            provider.ensureVertexCentricIndices(graph, VertexCentricIndexSpec.builder().withEdgeLabel("contains")
+                    .withDirection(Direction.OUT).withProperty("uid", String.class).build());
+
+            assert provider.getReindexJobs().keySet().equals(new HashSet<>(Arrays.asList("by_kachna",
+                    "contains_by_uid"))) : "Unexpected re-indexing jobs: " + provider.getReindexJobs().keySet();
+
+            for (ReindexJob job : provider.getReindexJobs().values()) {
+                assert job.await(1, TimeUnit.MINUTES) : "Re-indexing of " + job.getIndexName() + " didn't finish.";
+                assert job.getFailure() == null : "Re-indexing of " + job.getIndexName() + " failed: " +
+                        job.getFailure();
+                assert job.getStatus() == SchemaStatus.ENABLED : "Index " + job.getIndexName() + " is " +
+                        job.getStatus();
+            }
+
+            //the elements that existed before the index are found using it
+            int found = 0;
+            for (Vertex v : graph.query().has("kachna", "k42").vertices()) {
+                found++;
+            }
+            assert found == 1 : "The existing vertex should have been found using the index.";
+        } finally {
+            graph.shutdown();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the number of the requests of a single tenant that are processed at the same time, so that one tenant
+ * cannot occupy all the worker threads and the graph.
+ *
+ * <p>The reads and the writes have separate limits. A request that exceeds the limit waits in a bounded queue for at
+ * most {@value #TIMEOUT_PROPERTY} milliseconds. The request is rejected straight away if the queue of its tenant is
+ * full or if too many requests of all the tenants together are waiting already, so that the waiting requests cannot
+ * occupy all the worker threads either.
+ *
+ * <p>The state of a tenant is only kept while it has requests in progress, so the memory used doesn't grow with the
+ * number of the tenants (or the made-up tenant ids) the requests ever came for.
+ *
+ * <p>The limits are configured using the system properties:
+ * <ul>
+ *     <li>{@value #READ_LIMIT_PROPERTY} - 16 by default, zero or negative value disables the limit on the reads
+ *     <li>{@value #READ_QUEUE_PROPERTY} - 64 by default
+ *     <li>{@value #WRITE_LIMIT_PROPERTY} - 4 by default, zero or negative value disables the limit on the writes
+ *     <li>{@value #WRITE_QUEUE_PROPERTY} - 32 by default
+ *     <li>{@value #MAX_WAITING_PROPERTY} - the maximum number of the waiting requests of all the tenants together,
+ *     16 by default
+ *     <li>{@value #TIMEOUT_PROPERTY} - 2000 by default
+ *     <li>{@value #RETRY_AFTER_PROPERTY} - the number of seconds the rejected clients are told to wait, 1 by default
+ * </ul>
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class AdmissionControl implements AdmissionControlMXBean {
+    public static final String READ_LIMIT_PROPERTY = "hawkular.inventory.rest.admission.read.limit";
+    public static final String READ_QUEUE_PROPERTY = "hawkular.inventory.rest.admission.read.queue";
+    public static final String WRITE_LIMIT_PROPERTY = "hawkular.inventory.rest.admission.write.limit";
+    public static final String WRITE_QUEUE_PROPERTY = "hawkular.inventory.rest.admission.write.queue";
+    public static final String MAX_WAITING_PROPERTY = "hawkular.inventory.rest.admission.maxWaiting";
+    public static final String TIMEOUT_PROPERTY = "hawkular.inventory.rest.admission.timeout";
+    public static final String RETRY_AFTER_PROPERTY = "hawkular.inventory.rest.admission.retryAfter";
+    public static final String OBJECT_NAME = "org.hawkular.inventory:type=AdmissionControl";
+
+    static final AdmissionControl INSTANCE = new AdmissionControl();
+
+    private final int readLimit = Integer.getInteger(READ_LIMIT_PROPERTY, 16);
+    private final int readQueueSize = Integer.getInteger(READ_QUEUE_PROPERTY, 64);
+    private final int writeLimit = Integer.getInteger(WRITE_LIMIT_PROPERTY, 4);
+    private final int writeQueueSize = Integer.getInteger(WRITE_QUEUE_PROPERTY, 32);
+    private final int maxWaiting = Integer.getInteger(MAX_WAITING_PROPERTY, 16);
+    private final long timeout = Long.getLong(TIMEOUT_PROPERTY, 2000);
+    private final int retryAfter = Integer.getInteger(RETRY_AFTER_PROPERTY, 1);
+
+    private final Map<String, Gate> gates = new ConcurrentHashMap<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejectedTooManyRequests = new LongAdder();
+    private final LongAdder rejectedUnavailable = new LongAdder();
+
+    private AdmissionControl() {
+    }
+
+    void registerMBean() {
+        MBeans.register(this, OBJECT_NAME);
+    }
+
+    void unregisterMBean() {
+        MBeans.unregister(OBJECT_NAME);
+    }
+
+    /**
+     * Admits the request or waits until it can be admitted.
+     *
+     * @param group the tenant the request works with or the path of the endpoint for requests not bound to a tenant
+     * @param write whether the request modifies the inventory
+     * @return the ticket of the request, to be released once the response has been sent
+     */
+    Ticket admit(String group, boolean write) {
+        int limit = write ? writeLimit : readLimit;
+        if (limit <= 0) {
+            admitted.increment();
+            return new Ticket(null, null, 0);
+        }
+
+        String key = (write ? "w/" : "r/") + group;
+        Gate gate = enter(key, limit);
+
+        if (gate.permits.tryAcquire()) {
+            return admitted(key, gate);
+        }
+
+        if (gate.waiting.incrementAndGet() > (write ? writeQueueSize : readQueueSize)) {
+            gate.waiting.decrementAndGet();
+            leave(key);
+            rejectedTooManyRequests.increment();
+            return new Ticket(null, null, 429);
+        }
+
+        if (waiting.incrementAndGet() > maxWaiting) {
+            //no more worker threads can be parked here
+            waiting.decrementAndGet();
+            gate.waiting.decrementAndGet();
+            leave(key);
+            rejectedUnavailable.increment();
+            return new Ticket(null, null, 503);
+        }
+
+        try {
+            if (gate.permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                queued.increment();
+                return admitted(key, gate);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            gate.waiting.decrementAndGet();
+            waiting.decrementAndGet();
+        }
+
+        leave(key);
+        rejectedUnavailable.increment();
+        return new Ticket(null, null, 503);
+    }
+
+    int getRetryAfter() {
+        return retryAfter;
+    }
+
+    private Ticket admitted(String key, Gate gate) {
+        admitted.increment();
+        active.incrementAndGet();
+        return new Ticket(key, gate, 0);
+    }
+
+    /**
+     * Finds or creates the gate and counts the request as its user.
+     */
+    private Gate enter(String key, int limit) {
+        return gates.compute(key, (k, g) -> {
+            Gate ret = g == null ? new Gate(limit) : g;
+            ret.users++;
+            return ret;
+        });
+    }
+
+    /**
+     * Stops counting the request as the user of the gate and throws the gate away once it has no users.
+     */
+    private void leave(String key) {
+        gates.computeIfPresent(key, (k, g) -> --g.users == 0 ? null : g);
+    }
+
+    @Override
+    public int getReadLimit() {
+        return readLimit;
+    }
+
+    @Override
+    public int getReadQueueSize() {
+        return readQueueSize;
+    }
+
+    @Override
+    public int getWriteLimit() {
+        return writeLimit;
+    }
+
+    @Override
+    public int getWriteQueueSize() {
+        return writeQueueSize;
+    }
+
+    @Override
+    public int getMaxWaitingRequests() {
+        return maxWaiting;
+    }
+
+    @Override
+    public int getActiveRequests() {
+        return active.get();
+    }
+
+    @Override
+    public int getWaitingRequests() {
+        return waiting.get();
+    }
+
+    @Override
+    public long getAdmittedRequests() {
+        return admitted.sum();
+    }
+
+    @Override
+    public long getQueuedRequests() {
+        return queued.sum();
+    }
+
+    @Override
+    public long getRejectedTooManyRequests() {
+        return rejectedTooManyRequests.sum();
+    }
+
+    @Override
+    public long getRejectedUnavailable() {
+        return rejectedUnavailable.sum();
+    }
+
+    /**
+     * The outcome of the admission of a single request.
+     */
+    final class Ticket {
+        private final String key;
+        private final Gate gate;
+        private final int rejectionStatus;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Ticket(String key, Gate gate, int rejectionStatus) {
+            this.key = key;
+            this.gate = gate;
+            this.rejectionStatus = rejectionStatus;
+        }
+
+        /**
+         * @return the HTTP status to reject the request with or 0 if the request was admitted
+         */
+        int getRejectionStatus() {
+            return rejectionStatus;
+        }
+
+        /**
+         * Lets the next request of the tenant in. Can be called more than once.
+         */
+        void release() {
+            if (gate != null && released.compareAndSet(false, true)) {
+                active.decrementAndGet();
+                gate.permits.release();
+                leave(key);
+            }
+        }
+    }
+
+    private static final class Gate {
+        final Semaphore permits;
+        final AtomicInteger waiting = new AtomicInteger();
+
+        /**
+         * The number of the requests admitted through or waiting at the gate. Only modified while the gate is being
+         * computed in the map of the gates.
+         */
+        int users;
+
+        Gate(int limit) {
+            permits = new Semaphore(limit);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import org.hawkular.inventory.rest.json.ApiError;
+import org.hawkular.inventory.rest.json.QueryFilterJSON;
+import org.hawkular.inventory.rest.json.QueryJSON;
+import org.hawkular.inventory.rest.json.QueryStepJSON;
+
+import javax.annotation.Priority;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.Path;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+/**
+ * Applies the {@link AdmissionControl} to the requests. The requests are grouped by the tenant in their path. The
+ * queries are grouped by the tenant their first step is limited to, if it is a single one. The rest of the requests
+ * without a tenant in the path is grouped by the endpoint, so that for example the queries spanning all the tenants
+ * cannot hold back the administration of the indices.
+ *
+ * <p>The request whose tenant has too many requests waiting is rejected with 429 (Too Many Requests), the request
+ * that waited too long or would have to wait while too many requests are waiting already is rejected with 503
+ * (Service Unavailable). Both carry the {@code Retry-After} header.
+ *
+ * <p>This runs before the {@link UnitOfWorkFilter} so that the rejected requests never touch the inventory. Like
+ * the unit of work, the admitted request holds its place until the response entity is written.
+ *
+ * @author agent
+ * @since 1.0
+ */
+@Provider
+@Priority(Priorities.AUTHORIZATION)
+public class AdmissionControlFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+    private static final String TICKET_PROPERTY = AdmissionControl.Ticket.class.getName();
+
+    /**
+     * The queries are small, the larger bodies are not read ahead of the resource just to find the tenant.
+     */
+    private static final int MAX_QUERY_PEEK = 64 * 1024;
+
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Context
+    private Providers providers;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        Class<?> resourceClass = resourceInfo.getResourceClass();
+        if (resourceClass == RestPing.class || resourceClass == RestApiMetrics.class) {
+            //the health checks and the monitoring must get through whatever the load
+            return;
+        }
+
+        boolean write = !HttpMethod.OPTIONS.equals(requestContext.getMethod())
+                && !UnitOfWorkFilter.isReadOnly(requestContext, resourceInfo);
+
+        String tenantId = requestContext.getUriInfo().getPathParameters().getFirst("tenantId");
+        if (tenantId == null && resourceClass == RestQuery.class) {
+            tenantId = queriedTenant(requestContext);
+        }
+
+        String group = tenantId == null ? endpointOf(resourceClass) : tenantId;
+
+        AdmissionControl.Ticket ticket = AdmissionControl.INSTANCE.admit(group, write);
+
+        if (ticket.getRejectionStatus() == 0) {
+            requestContext.setProperty(TICKET_PROPERTY, ticket);
+            return;
+        }
+
+        String message = ticket.getRejectionStatus() == 429 ? "Too many concurrent requests for the tenant."
+                : "The server is too busy to process the request in time.";
+
+        requestContext.abortWith(Response.status(ticket.getRejectionStatus())
+                .header(HttpHeaders.RETRY_AFTER, AdmissionControl.INSTANCE.getRetryAfter())
+                .type(MediaType.APPLICATION_JSON_TYPE).entity(new ApiError(message)).build());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        if (!responseContext.hasEntity()) {
+            release(requestContext.getProperty(TICKET_PROPERTY));
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        try {
+            context.proceed();
+        } finally {
+            release(context.getProperty(TICKET_PROPERTY));
+        }
+    }
+
+    /**
+     * Reads the query ahead of the resource and puts its body back for the resource to read it again.
+     *
+     * @return the id of the single tenant the first step of the query is limited to or null if there is no such
+     * tenant or the query cannot be read
+     */
+    private String queriedTenant(ContainerRequestContext requestContext) throws IOException {
+        if (!requestContext.hasEntity()) {
+            return null;
+        }
+
+        InputStream body = requestContext.getEntityStream();
+        ByteArrayOutputStream peek = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int cnt;
+        while (peek.size() <= MAX_QUERY_PEEK && (cnt = body.read(buffer)) != -1) {
+            peek.write(buffer, 0, cnt);
+        }
+
+        byte[] read = peek.toByteArray();
+        boolean complete = peek.size() <= MAX_QUERY_PEEK;
+        requestContext.setEntityStream(complete ? new ByteArrayInputStream(read)
+                : new SequenceInputStream(new ByteArrayInputStream(read), body));
+
+        MessageBodyReader<QueryJSON> reader = providers.getMessageBodyReader(QueryJSON.class, QueryJSON.class,
+                NO_ANNOTATIONS, requestContext.getMediaType());
+        if (!complete || reader == null) {
+            return null;
+        }
+
+        QueryJSON query;
+        try {
+            query = reader.readFrom(QueryJSON.class, QueryJSON.class, NO_ANNOTATIONS, requestContext.getMediaType(),
+                    requestContext.getHeaders(), new ByteArrayInputStream(read));
+        } catch (IOException | RuntimeException e) {
+            //the resource reports the invalid query
+            return null;
+        }
+
+        if (query == null || query.getPath() == null || query.getPath().isEmpty()) {
+            return null;
+        }
+
+        QueryStepJSON first = query.getPath().get(0);
+        if (!"tenant".equals(first.getType()) || first.getFilters() == null) {
+            return null;
+        }
+
+        for (QueryFilterJSON f : first.getFilters()) {
+            List<String> ids = f.getIds();
+            if (ids != null && ids.size() == 1) {
+                return ids.get(0);
+            }
+        }
+
+        return null;
+    }
+
+    private static String endpointOf(Class<?> resourceClass) {
+        Path path = resourceClass == null ? null : resourceClass.getAnnotation(Path.class);
+        //the paths of the endpoints start with a slash, which sets them apart from the ids of the tenants
+        return path == null ? "/" : path.value();
+    }
+
+    private static void release(Object ticket) {
+        if (ticket != null) {
+            ((AdmissionControl.Ticket) ticket).release();
+        }
+    }
+}
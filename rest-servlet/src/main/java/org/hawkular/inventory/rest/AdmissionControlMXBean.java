@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+/**
+ * The statistics of the admission control of the REST requests, exported over JMX as
+ * {@value AdmissionControl#OBJECT_NAME}.
+ *
+ * @author agent
+ * @since 1.0
+ */
+public interface AdmissionControlMXBean {
+
+    /**
+     * @return the maximum number of the read requests of a single tenant processed at the same time
+     */
+    int getReadLimit();
+
+    /**
+     * @return the maximum number of the read requests of a single tenant waiting for their turn
+     */
+    int getReadQueueSize();
+
+    /**
+     * @return the maximum number of the write requests of a single tenant processed at the same time
+     */
+    int getWriteLimit();
+
+    /**
+     * @return the maximum number of the write requests of a single tenant waiting for their turn
+     */
+    int getWriteQueueSize();
+
+    /**
+     * @return the maximum number of the requests of all the tenants waiting for their turn
+     */
+    int getMaxWaitingRequests();
+
+    /**
+     * @return the number of the requests being processed right now
+     */
+    int getActiveRequests();
+
+    /**
+     * @return the number of the requests waiting for their turn right now
+     */
+    int getWaitingRequests();
+
+    /**
+     * @return the number of the requests admitted so far
+     */
+    long getAdmittedRequests();
+
+    /**
+     * @return the number of the admitted requests that had to wait for their turn
+     */
+    long getQueuedRequests();
+
+    /**
+     * @return the number of the requests rejected with 429 because the wait queue of the tenant was full
+     */
+    long getRejectedTooManyRequests();
+
+    /**
+     * @return the number of the requests rejected with 503 because they didn't get their turn in time or because too
+     *         many requests were waiting already
+     */
+    long getRejectedUnavailable();
+}
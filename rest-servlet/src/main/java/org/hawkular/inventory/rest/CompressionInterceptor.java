@@ -0,0 +1,197 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the responses using gzip or deflate if the client asks for it using the {@code Accept-Encoding} header.
+ *
+ * <p>The responses smaller than the threshold configured by the {@value #THRESHOLD_PROPERTY} system property
+ * (1024 bytes by default) are sent uncompressed, because the compression would only cost time without saving
+ * anything. A negative threshold disables the compression altogether.
+ *
+ * @author agent
+ * @since 1.0
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor {
+    public static final String THRESHOLD_PROPERTY = "hawkular.inventory.rest.compression.threshold";
+
+    private static final int THRESHOLD = Integer.getInteger(THRESHOLD_PROPERTY, 1024);
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+
+        String encoding = THRESHOLD < 0 || headers.containsKey(HttpHeaders.CONTENT_ENCODING) ? null
+                : negotiate(requestHeaders.getRequestHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        OutputStream original = context.getOutputStream();
+        ThresholdOutputStream out = new ThresholdOutputStream(original, headers, encoding);
+        context.setOutputStream(out);
+        try {
+            context.proceed();
+        } finally {
+            out.finish();
+            context.setOutputStream(original);
+        }
+    }
+
+    private static String negotiate(List<String> acceptEncodings) {
+        if (acceptEncodings == null) {
+            return null;
+        }
+
+        boolean deflate = false;
+        for (String header : acceptEncodings) {
+            for (String value : header.split(",")) {
+                String[] parts = value.trim().split(";");
+                String coding = parts[0].trim().toLowerCase();
+
+                boolean refused = false;
+                for (int i = 1; i < parts.length; ++i) {
+                    String param = parts[i].replace(" ", "");
+                    if (param.startsWith("q=")) {
+                        refused |= !isAcceptable(param.substring(2));
+                    }
+                }
+
+                if (refused) {
+                    continue;
+                }
+
+                if ("gzip".equals(coding)) {
+                    return "gzip";
+                } else if ("deflate".equals(coding)) {
+                    deflate = true;
+                }
+            }
+        }
+
+        return deflate ? "deflate" : null;
+    }
+
+    /**
+     * @param qValue the quality value of a content coding
+     * @return false if the coding is refused by a zero quality or if the quality is malformed, true otherwise
+     */
+    private static boolean isAcceptable(String qValue) {
+        try {
+            return Double.parseDouble(qValue) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Holds the data in memory until it is clear that the response is larger than the threshold. Only then the
+     * headers are updated and the data is compressed. If the response ends before that, it is written as is.
+     */
+    private static final class ThresholdOutputStream extends OutputStream {
+        private final OutputStream target;
+        private final MultivaluedMap<String, Object> headers;
+        private final String encoding;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private DeflaterOutputStream compressed;
+        private boolean finished;
+
+        ThresholdOutputStream(OutputStream target, MultivaluedMap<String, Object> headers, String encoding) {
+            this.target = target;
+            this.headers = headers;
+            this.encoding = encoding;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (compressed != null) {
+                compressed.write(b, off, len);
+                return;
+            }
+
+            buffer.write(b, off, len);
+
+            if (buffer.size() > THRESHOLD) {
+                //the headers are sent along with the first byte written to the target, so this is the last moment
+                headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+                headers.remove(HttpHeaders.CONTENT_LENGTH);
+
+                compressed = "gzip".equals(encoding) ? new GZIPOutputStream(target) : new DeflaterOutputStream(target);
+                buffer.writeTo(compressed);
+                buffer = null;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            //until the threshold is reached, there is nothing to flush - we don't know how to send the data yet
+            if (compressed != null) {
+                compressed.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            //the target is closed by the JAX-RS runtime
+            finish();
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+
+            finished = true;
+
+            if (compressed == null) {
+                buffer.writeTo(target);
+            } else {
+                compressed.finish();
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author agent
+ * @since 1.0
+ */
+final class EndpointMetrics implements EndpointMetricsMXBean {
+    private final long start = System.nanoTime();
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+
+    /**
+     * @param latency the latency of the request in microseconds
+     * @param status  the HTTP status of the response
+     * @param bytes   the number of the bytes of the response entity
+     */
+    void record(long latency, int status, long bytes) {
+        latencies.record(latency);
+        responseBytes.add(bytes);
+
+        if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        }
+    }
+
+    @Override
+    public long getRequests() {
+        return latencies.getCount();
+    }
+
+    @Override
+    public double getMeanRate() {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return seconds <= 0 ? 0 : latencies.getCount() / seconds;
+    }
+
+    @Override
+    public long getClientErrors() {
+        return clientErrors.sum();
+    }
+
+    @Override
+    public long getServerErrors() {
+        return serverErrors.sum();
+    }
+
+    @Override
+    public long getResponseBytes() {
+        return responseBytes.sum();
+    }
+
+    @Override
+    public double getMeanLatency() {
+        return latencies.getMean();
+    }
+
+    @Override
+    public long getMedianLatency() {
+        return latencies.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getLatency90thPercentile() {
+        return latencies.getValueAtPercentile(90);
+    }
+
+    @Override
+    public long getLatency99thPercentile() {
+        return latencies.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getMaxLatency() {
+        return latencies.getMax();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+/**
+ * The statistics of the requests to a single REST endpoint, exported over JMX as
+ * {@code org.hawkular.inventory:type=RestEndpoint,name="<HTTP method> <URL template>"}.
+ *
+ * <p>The latencies are in microseconds and measure the time from the admission of the request until the whole
+ * response entity is written.
+ *
+ * @author agent
+ * @since 1.0
+ */
+public interface EndpointMetricsMXBean {
+
+    /**
+     * @return the number of the finished requests
+     */
+    long getRequests();
+
+    /**
+     * @return the average number of the requests per second since the first request
+     */
+    double getMeanRate();
+
+    /**
+     * @return the number of the requests that finished with a 4xx status
+     */
+    long getClientErrors();
+
+    /**
+     * @return the number of the requests that finished with a 5xx status
+     */
+    long getServerErrors();
+
+    /**
+     * @return the total number of the bytes written in the response entities, after the compression
+     */
+    long getResponseBytes();
+
+    double getMeanLatency();
+
+    /**
+     * @return the latency that half of the requests didn't exceed
+     */
+    long getMedianLatency();
+
+    /**
+     * @return the latency that 90% of the requests didn't exceed
+     */
+    long getLatency90thPercentile();
+
+    /**
+     * @return the latency that 99% of the requests didn't exceed
+     */
+    long getLatency99thPercentile();
+
+    long getMaxLatency();
+}
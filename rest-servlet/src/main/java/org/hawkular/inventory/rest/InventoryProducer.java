@@ -57,16 +57,27 @@ public class InventoryProducer {
                     .getAbsolutePath());
         }
 
+        if ("berkeleyje".equals(config.get("storage.backend")) && config.get("storage.directory") == null) {
+            config.put("storage.directory", new File(config.get("jboss.server.data.dir"),
+                    "hawkular-inventory-titan").getAbsolutePath());
+        }
+
         Inventory i = new InventoryService();
 
         i.initialize(Configuration.builder()
                 .withFeedIdStrategy(new AcceptWithFallbackFeedIdStrategy(new RandomUUIDFeedIdStrategy()))
                 .withConfiguration(config).build());
 
+        //the JMX beans of the REST API live as long as the inventory it exposes
+        AdmissionControl.INSTANCE.registerMBean();
+
         return i;
     }
 
     public void closeInventory(@Disposes @ForRest Inventory inventory) throws Exception {
+        AdmissionControl.INSTANCE.unregisterMBean();
+        RequestMetrics.INSTANCE.unregisterMBeans();
+
         inventory.close();
     }
 
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative values with a bounded relative error, in the spirit of the HDR histograms.
+ *
+ * <p>The values are counted in buckets whose width doubles with every power of two, each power of two being split
+ * into {@value #SUB_BUCKETS} sub-buckets. The percentiles are therefore precise to 1/{@value #SUB_BUCKETS} of the
+ * value, while recording a value is just a few bit operations and an atomic increment.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        counts.incrementAndGet(indexOf(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @return the highest value equivalent to the values at the percentile or 0 if nothing has been recorded yet
+     */
+    long getValueAtPercentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+
+        long threshold = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); ++i) {
+            seen += counts.get(i);
+            if (seen >= threshold) {
+                return Math.min(highestValueAt(i), max.get());
+            }
+        }
+
+        return max.get();
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        int subBucket = index % SUB_BUCKETS;
+
+        return ((long) (SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Registers the JMX beans of the REST API in the platform MBean server. The beans live as long as the deployment,
+ * so they are unregistered once the inventory the REST API exposes is closed (see {@link InventoryProducer}).
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class MBeans {
+
+    private MBeans() {
+        //no instances, thank you
+    }
+
+    /**
+     * Registers the bean under the name, replacing the bean left behind by a deployment that wasn't cleanly shut down.
+     *
+     * @param bean the bean to register
+     * @param name the object name of the bean
+     */
+    static void register(Object bean, String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            try {
+                server.registerMBean(bean, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(bean, objectName);
+            }
+        } catch (JMException e) {
+            RestApiLogger.LOGGER.warn(e);
+        }
+    }
+
+    /**
+     * @param name the object name of the bean to unregister, nothing happens if no such bean is registered
+     */
+    static void unregister(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(name));
+        } catch (InstanceNotFoundException e) {
+            //already gone
+        } catch (JMException e) {
+            RestApiLogger.LOGGER.warn(e);
+        }
+    }
+}
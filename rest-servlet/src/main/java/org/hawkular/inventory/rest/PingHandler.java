@@ -25,6 +25,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.Response;
 import java.util.Date;
 
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 /**
@@ -34,8 +35,8 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 public class PingHandler {
 
     @GET
-    @Consumes({ APPLICATION_JSON })
-    @Produces({ APPLICATION_JSON })
+    @Consumes({ APPLICATION_JSON, APPLICATION_JACKSON_SMILE })
+    @Produces({ APPLICATION_JSON, APPLICATION_JACKSON_SMILE })
     @ApiOperation("A dummy operation returning the current date on the server.")
     public Response ping() {
         return Response.ok(new StringValue(new Date().toString())).build();
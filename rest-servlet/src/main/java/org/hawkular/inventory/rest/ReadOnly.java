@@ -0,0 +1,37 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+
+/**
+ * Marks the resource methods that only read the inventory even though they are not invoked using GET or HEAD, like
+ * the queries sent in the bodies of POST requests. Such requests run in a read-only unit of work and are admitted as
+ * reads.
+ *
+ * @author agent
+ * @since 1.0
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(METHOD)
+public @interface ReadOnly {
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import javax.management.ObjectName;
+import javax.ws.rs.Path;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the {@link EndpointMetrics} of the REST endpoints. The endpoints are identified by the HTTP method and the
+ * URL template of the resource method, so that e.g. the requests for all the resources of all the tenants are counted
+ * together. Each endpoint is registered in JMX when it is first called and all of them are unregistered when the REST
+ * API shuts down.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class RequestMetrics {
+    public static final String OBJECT_NAME_PREFIX = "org.hawkular.inventory:type=RestEndpoint,name=";
+
+    static final RequestMetrics INSTANCE = new RequestMetrics();
+
+    private final Map<Method, String> templates = new ConcurrentHashMap<>();
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    private RequestMetrics() {
+    }
+
+    /**
+     * @param httpMethod     the HTTP method of the request
+     * @param resourceMethod the resource method the request was matched to
+     * @return the metrics of the endpoint
+     */
+    EndpointMetrics of(String httpMethod, Method resourceMethod) {
+        String template = templates.computeIfAbsent(resourceMethod, RequestMetrics::templateOf);
+        return endpoints.computeIfAbsent(httpMethod + " " + template, RequestMetrics::register);
+    }
+
+    /**
+     * Unregisters the metrics of all the endpoints from JMX and forgets them.
+     */
+    void unregisterMBeans() {
+        endpoints.keySet().forEach(endpoint -> MBeans.unregister(objectNameOf(endpoint)));
+        endpoints.clear();
+    }
+
+    /**
+     * @return the metrics of all the endpoints called so far, by the endpoint name
+     */
+    SortedMap<String, EndpointMetricsMXBean> getAll() {
+        return new TreeMap<>(endpoints);
+    }
+
+    private static String templateOf(Method method) {
+        Path classPath = method.getDeclaringClass().getAnnotation(Path.class);
+        Path methodPath = method.getAnnotation(Path.class);
+
+        String template = (classPath == null ? "" : "/" + classPath.value()) + (methodPath == null ? ""
+                : "/" + methodPath.value());
+
+        template = template.replaceAll("/+", "/");
+
+        return template.length() > 1 && template.endsWith("/") ? template.substring(0, template.length() - 1)
+                : template;
+    }
+
+    private static EndpointMetrics register(String endpoint) {
+        EndpointMetrics metrics = new EndpointMetrics();
+        MBeans.register(metrics, objectNameOf(endpoint));
+        return metrics;
+    }
+
+    private static String objectNameOf(String endpoint) {
+        return OBJECT_NAME_PREFIX + ObjectName.quote(endpoint);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records the latency, the status and the size of the response of every request in the {@link RequestMetrics}.
+ *
+ * <p>This runs before all the other filters so that the latency includes the wait for the {@link AdmissionControl}
+ * and, as the outermost writer interceptor, counts the bytes of the response after the compression. The request is
+ * measured until its response entity is written, because the entities can be streamed.
+ *
+ * @author agent
+ * @since 1.0
+ */
+@Provider
+@Priority(Priorities.AUTHENTICATION)
+public class RequestMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+    private static final String REQUEST_PROPERTY = RequestMetricsFilter.class.getName();
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        if (resourceInfo.getResourceMethod() == null) {
+            return;
+        }
+
+        EndpointMetrics metrics = RequestMetrics.INSTANCE.of(requestContext.getMethod(),
+                resourceInfo.getResourceMethod());
+
+        requestContext.setProperty(REQUEST_PROPERTY, new Measurement(metrics));
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        Measurement measurement = (Measurement) requestContext.getProperty(REQUEST_PROPERTY);
+        if (measurement == null) {
+            return;
+        }
+
+        measurement.status = responseContext.getStatus();
+
+        if (!responseContext.hasEntity()) {
+            measurement.finish(0);
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        Measurement measurement = (Measurement) context.getProperty(REQUEST_PROPERTY);
+        if (measurement == null) {
+            context.proceed();
+            return;
+        }
+
+        OutputStream original = context.getOutputStream();
+        CountingOutputStream out = new CountingOutputStream(original);
+        context.setOutputStream(out);
+        try {
+            context.proceed();
+        } finally {
+            context.setOutputStream(original);
+            measurement.finish(out.count);
+        }
+    }
+
+    private static final class Measurement {
+        private final EndpointMetrics metrics;
+        private final long start = System.nanoTime();
+        private int status;
+
+        Measurement(EndpointMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        void finish(long bytes) {
+            metrics.record((System.nanoTime() - start) / 1000, status, bytes);
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            //the target is closed by the JAX-RS runtime
+            flush();
+        }
+    }
+}
@@ -16,8 +16,14 @@
  */
 package org.hawkular.inventory.rest;
 
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Providers;
+import java.util.Iterator;
 
 /**
  * @author Lukas Krejci
@@ -36,4 +42,26 @@ final class ResponseUtil {
     public static Response.ResponseBuilder created(UriInfo info,  String id) {
         return Response.status(Response.Status.CREATED).location(info.getRequestUriBuilder().path(id).build());
     }
+
+    /**
+     * The JSON and Smile responses are streamed, so that the entities never need to be held in memory all at once.
+     *
+     * @param providers the providers of the application used to serialize the individual entities
+     * @param headers   the headers of the current request
+     * @param entities  the entities to return
+     * @return the response builder with status 200 and the entities in the body
+     */
+    public static Response.ResponseBuilder streamed(Providers providers, HttpHeaders headers, Iterator<?> entities) {
+        for (MediaType type : headers.getAcceptableMediaTypes()) {
+            if (type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) {
+                return Response.ok(new StreamingJsonArray(providers, entities), MediaType.APPLICATION_JSON_TYPE);
+            } else if (type.isCompatible(SmileMediaTypes.APPLICATION_JACKSON_SMILE_TYPE)) {
+                return Response.ok(new StreamingSmileArray(providers, entities),
+                        SmileMediaTypes.APPLICATION_JACKSON_SMILE_TYPE);
+            }
+        }
+
+        //let the JAX-RS runtime figure out that we can't produce any of the acceptable types
+        return Response.ok(new StreamingJsonArray(providers, entities));
+    }
 }
@@ -44,4 +44,9 @@ public interface RestApiLogger {
     @Message(id = 2001, value = "Something bad has happened")
     void warn(@Cause Throwable t);
 
+    @LogMessage(level = Logger.Level.WARN)
+    @Message(id = 2002, value = "Failed to stream the list of the response after %d elements. The list is left " +
+            "unterminated.")
+    void streamingFailed(int count, @Cause Throwable t);
+
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+/**
+ * Exposes the statistics of the REST API itself, the same that are available over JMX.
+ *
+ * @author agent
+ * @since 1.0
+ */
+@Path("/metrics")
+@Produces({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Consumes({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Api(value = "/metrics", description = "Statistics of the REST API")
+public class RestApiMetrics {
+
+    @GET
+    @Path("/")
+    @ApiOperation("Returns the latencies, throughput, error counts and response sizes of the called endpoints and the" +
+            " statistics of the admission control")
+    public Map<String, Object> get() {
+        Map<String, Object> ret = new LinkedHashMap<>();
+        ret.put("endpoints", RequestMetrics.INSTANCE.getAll());
+        ret.put("admission", AdmissionControl.INSTANCE);
+        return ret;
+    }
+}
@@ -22,6 +22,7 @@ import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiParam;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
+import org.hawkular.inventory.api.Environments;
 import org.hawkular.inventory.api.Inventory;
 import org.hawkular.inventory.api.model.Environment;
 import org.hawkular.inventory.rest.json.ApiError;
@@ -36,12 +37,15 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 /**
@@ -49,8 +53,8 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
  * @since 1.0
  */
 @Path("/")
-@Produces(value = APPLICATION_JSON)
-@Consumes(value = APPLICATION_JSON)
+@Produces({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Consumes({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
 @Api(value = "/", description = "CRUD of environments.")
 public class RestEnvironments {
 
@@ -65,8 +69,11 @@ public class RestEnvironments {
             @ApiResponse(code = 404, message = "Tenant not found", response = ApiError.class),
             @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
     })
-    public Set<Environment> getAll(@PathParam("tenantId") String tenantId) throws Exception {
-        return inventory.tenants().get(tenantId).environments().getAll().entities();
+    public Set<Environment> getAll(@PathParam("tenantId") String tenantId,
+                                   @ApiParam("Only the entities with these ids are returned")
+                                   @QueryParam("id") List<String> ids) throws Exception {
+        Environments.ReadWrite envs = inventory.tenants().get(tenantId).environments();
+        return (ids.isEmpty() ? envs.getAll() : envs.get(ids.toArray(new String[ids.size()]))).entities();
     }
 
     @GET
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiResponse;
+import com.wordnik.swagger.annotations.ApiResponses;
+import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.Environment;
+import org.hawkular.inventory.api.model.Feed;
+import org.hawkular.inventory.api.model.Metric;
+import org.hawkular.inventory.api.model.MetricType;
+import org.hawkular.inventory.api.model.PropertyIndex;
+import org.hawkular.inventory.api.model.Resource;
+import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.Tenant;
+import org.hawkular.inventory.rest.json.ApiError;
+import org.hawkular.inventory.rest.json.PropertyIndexJSON;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+/**
+ * @author agent
+ * @since 1.0
+ */
+@Path("/admin/indexes")
+@Produces({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Consumes({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Api(value = "/admin/indexes", description = "Declaration of the indices on the custom properties of entities")
+public class RestIndexes {
+
+    static final Map<String, Class<? extends Entity>> ENTITY_TYPES = new HashMap<>();
+    private static final Map<String, Class<?>> VALUE_TYPES = new HashMap<>();
+
+    static {
+        ENTITY_TYPES.put("tenant", Tenant.class);
+        ENTITY_TYPES.put("environment", Environment.class);
+        ENTITY_TYPES.put("feed", Feed.class);
+        ENTITY_TYPES.put("resourceType", ResourceType.class);
+        ENTITY_TYPES.put("metricType", MetricType.class);
+        ENTITY_TYPES.put("resource", Resource.class);
+        ENTITY_TYPES.put("metric", Metric.class);
+
+        VALUE_TYPES.put("string", String.class);
+        VALUE_TYPES.put("integer", Integer.class);
+        VALUE_TYPES.put("long", Long.class);
+        VALUE_TYPES.put("double", Double.class);
+        VALUE_TYPES.put("boolean", Boolean.class);
+    }
+
+    @Inject @ForRest
+    private Inventory inventory;
+
+    @GET
+    @Path("/")
+    @ApiOperation("Lists the declared property indices")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "The list of property indices"),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response getAll() {
+        Set<PropertyIndexJSON> ret = inventory.propertyIndexes().getAll().stream().map(this::toJSON)
+                .collect(Collectors.toSet());
+
+        return Response.ok(ret).build();
+    }
+
+    @POST
+    @Path("/")
+    @ApiOperation("Declares a new index on a property of entities of given type")
+    @ApiResponses({
+            @ApiResponse(code = 204, message = "OK"),
+            @ApiResponse(code = 400, message = "Invalid input data", response = ApiError.class),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response create(PropertyIndexJSON index) {
+        Class<? extends Entity> entityType = ENTITY_TYPES.get(index.getEntityType());
+        if (entityType == null) {
+            throw new IllegalArgumentException("Unknown entity type '" + index.getEntityType() + "'.");
+        }
+
+        Class<?> valueType = Object.class;
+        if (index.getValueType() != null) {
+            valueType = VALUE_TYPES.get(index.getValueType());
+            if (valueType == null) {
+                throw new IllegalArgumentException("Unknown value type '" + index.getValueType() + "'.");
+            }
+        }
+
+        inventory.propertyIndexes().create(new PropertyIndex(entityType, index.getProperty(), valueType));
+
+        return Response.noContent().build();
+    }
+
+    private PropertyIndexJSON toJSON(PropertyIndex index) {
+        String entityType = ENTITY_TYPES.entrySet().stream().filter(e -> e.getValue() == index.getEntityType())
+                .map(Map.Entry::getKey).findFirst().orElse(index.getEntityType().getSimpleName());
+
+        String valueType = VALUE_TYPES.entrySet().stream().filter(e -> e.getValue() == index.getValueType())
+                .map(Map.Entry::getKey).findFirst().orElse(null);
+
+        return new PropertyIndexJSON(entityType, index.getProperty(), valueType);
+    }
+}
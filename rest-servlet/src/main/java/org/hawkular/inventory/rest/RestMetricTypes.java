@@ -23,6 +23,7 @@ import com.wordnik.swagger.annotations.ApiParam;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
 import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.MetricTypes;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.api.model.MetricUnit;
 import org.hawkular.inventory.rest.json.ApiError;
@@ -38,11 +39,14 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import java.util.List;
 import java.util.Set;
 
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 /**
@@ -50,8 +54,8 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
  * @since 1.0
  */
 @Path("/")
-@Produces(value = APPLICATION_JSON)
-@Consumes(value = APPLICATION_JSON)
+@Produces({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Consumes({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
 @Api(value = "/", description = "Metric types CRUD")
 public class RestMetricTypes {
 
@@ -66,8 +70,11 @@ public class RestMetricTypes {
             @ApiResponse(code = 404, message = "Tenant doesn't exist", response = ApiError.class),
             @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
     })
-    public Set<MetricType> getAll(@PathParam("tenantId") String tenantId) {
-        return inventory.tenants().get(tenantId).metricTypes().getAll().entities();
+    public Set<MetricType> getAll(@PathParam("tenantId") String tenantId,
+                                  @ApiParam("Only the entities with these ids are returned")
+                                  @QueryParam("id") List<String> ids) {
+        MetricTypes.ReadWrite types = inventory.tenants().get(tenantId).metricTypes();
+        return (ids.isEmpty() ? types.getAll() : types.get(ids.toArray(new String[ids.size()]))).entities();
     }
 
     @GET
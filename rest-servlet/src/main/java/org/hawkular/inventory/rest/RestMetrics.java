@@ -23,6 +23,7 @@ import com.wordnik.swagger.annotations.ApiParam;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
 import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.Metrics;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.rest.json.ApiError;
@@ -38,11 +39,15 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
-import java.util.Set;
+import javax.ws.rs.ext.Providers;
+import java.util.List;
 
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 /**
@@ -50,14 +55,20 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
  * @since 1.0
  */
 @Path("/")
-@Produces(value = APPLICATION_JSON)
-@Consumes(value = APPLICATION_JSON)
+@Produces({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Consumes({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
 @Api(value = "/", description = "Metrics CRUD")
 public class RestMetrics {
 
     @Inject @ForRest
     private Inventory inventory;
 
+    @Context
+    private Providers providers;
+
+    @Context
+    private HttpHeaders headers;
+
     @POST
     @Path("/{tenantId}/{environmentId}/metrics")
     @ApiOperation("Creates a new metric in given environment")
@@ -111,17 +122,23 @@ public class RestMetrics {
 
     @GET
     @Path("/{tenantId}/{environmentId}/metrics")
-    @ApiOperation("Retrieves all metrics in an environment")
+    @ApiOperation(value = "Retrieves all metrics in an environment", response = Metric.class,
+            responseContainer = "Set")
     @ApiResponses({
             @ApiResponse(code = 200, message = "OK"),
             @ApiResponse(code = 404, message = "Tenant or environment doesn't exist",
                     response = ApiError.class),
             @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
     })
-    public Set<Metric> getMetrics(@PathParam("tenantId") String tenantId,
-                                  @PathParam("environmentId") String environmentId) {
+    public Response getMetrics(@PathParam("tenantId") String tenantId,
+                               @PathParam("environmentId") String environmentId,
+                               @ApiParam("Only the entities with these ids are returned")
+                               @QueryParam("id") List<String> ids) {
+
+        Metrics.ReadWrite metrics = inventory.tenants().get(tenantId).environments().get(environmentId).metrics();
+        Metrics.Multiple found = ids.isEmpty() ? metrics.getAll() : metrics.get(ids.toArray(new String[ids.size()]));
 
-        return inventory.tenants().get(tenantId).environments().get(environmentId).metrics().getAll().entities();
+        return ResponseUtil.streamed(providers, headers, found.entityIterator()).build();
     }
 
     @PUT
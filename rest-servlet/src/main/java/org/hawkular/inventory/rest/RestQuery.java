@@ -0,0 +1,331 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import com.wordnik.swagger.annotations.Api;
+import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiParam;
+import com.wordnik.swagger.annotations.ApiResponse;
+import com.wordnik.swagger.annotations.ApiResponses;
+import org.hawkular.inventory.api.Environments;
+import org.hawkular.inventory.api.Feeds;
+import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.MetricTypes;
+import org.hawkular.inventory.api.Metrics;
+import org.hawkular.inventory.api.Relationships;
+import org.hawkular.inventory.api.ResolvableToMany;
+import org.hawkular.inventory.api.ResourceTypes;
+import org.hawkular.inventory.api.Resources;
+import org.hawkular.inventory.api.Tenants;
+import org.hawkular.inventory.api.filters.Filter;
+import org.hawkular.inventory.api.filters.PropertyOperator;
+import org.hawkular.inventory.api.filters.Related;
+import org.hawkular.inventory.api.filters.RelationFilter;
+import org.hawkular.inventory.api.filters.RelationWith;
+import org.hawkular.inventory.api.filters.With;
+import org.hawkular.inventory.api.model.Entity;
+import org.hawkular.inventory.api.model.Relationship;
+import org.hawkular.inventory.rest.json.ApiError;
+import org.hawkular.inventory.rest.json.QueryFilterJSON;
+import org.hawkular.inventory.rest.json.QueryJSON;
+import org.hawkular.inventory.rest.json.QueryStepJSON;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Providers;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
+import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
+
+/**
+ * Executes the queries expressed in JSON. The query is compiled into the same chain of calls to the inventory API
+ * that a Java client would make, so it is evaluated in a single traversal of the inventory.
+ *
+ * <p>The transitive relationship filters follow at most {@value #MAX_DEPTH_PROPERTY} (a system property, 16 by
+ * default, zero or negative value disables the limit) relationships. The filters asking for more, or for an
+ * unlimited depth, are limited to that.
+ *
+ * @author agent
+ * @since 1.0
+ */
+@Path("/query")
+@Produces({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Consumes({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Api(value = "/query", description = "Generic queries")
+public class RestQuery {
+    public static final String MAX_DEPTH_PROPERTY = "hawkular.inventory.rest.query.maxDepth";
+
+    private static final int MAX_DEPTH = Integer.getInteger(MAX_DEPTH_PROPERTY, 16);
+
+    @Inject @ForRest
+    private Inventory inventory;
+
+    @Context
+    private Providers providers;
+
+    @Context
+    private HttpHeaders headers;
+
+    @POST
+    @Path("/")
+    @ReadOnly
+    @ApiOperation("Finds the entities or relationships at the end of the path described by the query")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "The list of the found entities or relationships"),
+            @ApiResponse(code = 400, message = "Invalid query", response = ApiError.class),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response query(@ApiParam(required = true) QueryJSON query,
+                          @ApiParam("The zero-based index of the page to return")
+                          @QueryParam("page") @DefaultValue("0") int page,
+                          @ApiParam("The number of the results per page, 0 for all the results")
+                          @QueryParam("per_page") @DefaultValue("0") int perPage,
+                          @ApiParam("The names of the properties to return, all of them are returned if not given")
+                          @QueryParam("fields") List<String> fields) {
+        if (query == null || query.getPath() == null || query.getPath().isEmpty()) {
+            throw new IllegalArgumentException("The query must have a path.");
+        }
+
+        if (page < 0 || perPage < 0) {
+            throw new IllegalArgumentException("The page and the number of results per page cannot be negative.");
+        }
+
+        ResolvableToMany<?> current = null;
+        for (QueryStepJSON step : query.getPath()) {
+            if (current instanceof Relationships.Multiple) {
+                throw new IllegalArgumentException("The relationships must be the last step of the query.");
+            }
+
+            current = next(current, step);
+        }
+
+        //the order of the results is the order of the traversal, which is stable while the inventory doesn't change
+        Stream<?> results = StreamSupport.stream(Spliterators.spliteratorUnknownSize(current.entityIterator(), 0),
+                false);
+
+        if (perPage > 0) {
+            results = results.skip((long) page * perPage).limit(perPage);
+        }
+
+        if (fields != null && !fields.isEmpty()) {
+            Set<String> retained = new HashSet<>();
+            fields.forEach(f -> Collections.addAll(retained, f.split(",")));
+            results = results.peek(r -> project(r, retained));
+        }
+
+        return ResponseUtil.streamed(providers, headers, results.iterator()).build();
+    }
+
+    private ResolvableToMany<?> next(ResolvableToMany<?> current, QueryStepJSON step) {
+        String type = step.getType();
+
+        if ("relationship".equals(type)) {
+            Relationships.Direction direction = step.getDirection() == null ? Relationships.Direction.outgoing
+                    : Relationships.Direction.valueOf(step.getDirection());
+
+            return relationships(current, direction).getAll(relationFilters(step.getFilters()));
+        }
+
+        Filter[] filters = filters(step.getFilters());
+
+        if (current == null) {
+            if ("tenant".equals(type)) {
+                return inventory.tenants().getAll(filters);
+            }
+        } else if (current instanceof Tenants.Multiple) {
+            Tenants.Multiple tenants = (Tenants.Multiple) current;
+            switch (type) {
+                case "environment":
+                    return tenants.environments().getAll(filters);
+                case "resourceType":
+                    return tenants.resourceTypes().getAll(filters);
+                case "metricType":
+                    return tenants.metricTypes().getAll(filters);
+            }
+        } else if (current instanceof Environments.Multiple) {
+            Environments.Multiple environments = (Environments.Multiple) current;
+            switch (type) {
+                case "feed":
+                    return environments.feeds().getAll(filters);
+                case "resource":
+                    return environments.resources().getAll(filters);
+                case "metric":
+                    return environments.metrics().getAll(filters);
+            }
+        } else if (current instanceof Feeds.Multiple) {
+            if ("resource".equals(type)) {
+                return ((Feeds.Multiple) current).resources().getAll(filters);
+            }
+        } else if (current instanceof ResourceTypes.Multiple) {
+            ResourceTypes.Multiple types = (ResourceTypes.Multiple) current;
+            switch (type) {
+                case "resource":
+                    return types.resources().getAll(filters);
+                case "metricType":
+                    return types.metricTypes().getAll(filters);
+            }
+        } else if (current instanceof MetricTypes.Multiple) {
+            if ("metric".equals(type)) {
+                return ((MetricTypes.Multiple) current).metrics().getAll(filters);
+            }
+        } else if (current instanceof Resources.Multiple) {
+            if ("metric".equals(type)) {
+                return ((Resources.Multiple) current).metrics().getAll(filters);
+            }
+        }
+
+        throw new IllegalArgumentException("Cannot go to '" + type + "' " + (current == null ? "at the start."
+                : "from the previous step."));
+    }
+
+    private static Relationships.Read relationships(ResolvableToMany<?> current, Relationships.Direction direction) {
+        if (current instanceof Tenants.Multiple) {
+            return ((Tenants.Multiple) current).relationships(direction);
+        } else if (current instanceof Environments.Multiple) {
+            return ((Environments.Multiple) current).relationships(direction);
+        } else if (current instanceof Feeds.Multiple) {
+            return ((Feeds.Multiple) current).relationships(direction);
+        } else if (current instanceof ResourceTypes.Multiple) {
+            return ((ResourceTypes.Multiple) current).relationships(direction);
+        } else if (current instanceof MetricTypes.Multiple) {
+            return ((MetricTypes.Multiple) current).relationships(direction);
+        } else if (current instanceof Resources.Multiple) {
+            return ((Resources.Multiple) current).relationships(direction);
+        } else if (current instanceof Metrics.Multiple) {
+            return ((Metrics.Multiple) current).relationships(direction);
+        }
+
+        throw new IllegalArgumentException("The relationships can only follow the entities.");
+    }
+
+    private static Filter[] filters(List<QueryFilterJSON> filters) {
+        if (filters == null) {
+            return Filter.all();
+        }
+
+        List<Filter> ret = new ArrayList<>();
+        for (QueryFilterJSON f : filters) {
+            if (f.getIds() != null) {
+                ret.add(With.ids(f.getIds().toArray(new String[f.getIds().size()])));
+            } else if (f.getTypes() != null) {
+                ret.add(With.types(entityTypes(f.getTypes())));
+            } else if (f.getProperty() != null) {
+                ret.add(f.getValues() == null || f.getValues().isEmpty() ? With.propertyExists(f.getProperty())
+                        : With.property(f.getProperty(), operator(f), f.getValues().toArray()));
+            } else if (f.getRelated() != null) {
+                Related<?> related = "target".equals(f.getRole()) ? Related.asTargetBy(f.getRelated())
+                        : Related.by(f.getRelated());
+
+                if (f.getMaxDepth() != null) {
+                    related = related.transitive(maxDepth(f.getMaxDepth()), f.getDedup() == null || f.getDedup());
+                }
+
+                ret.add(related);
+            } else {
+                throw new IllegalArgumentException("Unsupported entity filter. Only ids, types, property and related" +
+                        " filters can be applied to the entities.");
+            }
+        }
+
+        return ret.toArray(new Filter[ret.size()]);
+    }
+
+    /**
+     * Limits the depth of a transitive traversal to the configured maximum.
+     *
+     * @param requested the requested maximum depth, zero or less for unlimited
+     * @return the depth to actually use
+     */
+    static int maxDepth(int requested) {
+        if (MAX_DEPTH <= 0) {
+            return requested;
+        }
+
+        return requested <= 0 || requested > MAX_DEPTH ? MAX_DEPTH : requested;
+    }
+
+    private static RelationFilter[] relationFilters(List<QueryFilterJSON> filters) {
+        if (filters == null) {
+            return RelationFilter.all();
+        }
+
+        List<RelationFilter> ret = new ArrayList<>();
+        for (QueryFilterJSON f : filters) {
+            if (f.getIds() != null) {
+                ret.add(RelationWith.ids(f.getIds().toArray(new String[f.getIds().size()])));
+            } else if (f.getNames() != null) {
+                ret.add(RelationWith.names(f.getNames().toArray(new String[f.getNames().size()])));
+            } else if (f.getProperty() != null) {
+                ret.add(f.getValues() == null || f.getValues().isEmpty()
+                        ? RelationWith.propertyExists(f.getProperty())
+                        : RelationWith.property(f.getProperty(), operator(f), f.getValues().toArray()));
+            } else if (f.getSourceTypes() != null) {
+                ret.add(RelationWith.sourcesOfTypes(entityTypes(f.getSourceTypes())));
+            } else if (f.getTargetTypes() != null) {
+                ret.add(RelationWith.targetsOfTypes(entityTypes(f.getTargetTypes())));
+            } else {
+                throw new IllegalArgumentException("Unsupported relationship filter. Only ids, names, property," +
+                        " sourceTypes and targetTypes filters can be applied to the relationships.");
+            }
+        }
+
+        return ret.toArray(new RelationFilter[ret.size()]);
+    }
+
+    private static PropertyOperator operator(QueryFilterJSON filter) {
+        return filter.getOperator() == null ? PropertyOperator.EQUAL : PropertyOperator.valueOf(filter.getOperator());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Entity>[] entityTypes(List<String> names) {
+        Class<? extends Entity>[] ret = new Class[names.size()];
+        for (int i = 0; i < ret.length; ++i) {
+            ret[i] = RestIndexes.ENTITY_TYPES.get(names.get(i));
+            if (ret[i] == null) {
+                throw new IllegalArgumentException("Unknown entity type '" + names.get(i) + "'.");
+            }
+        }
+
+        return ret;
+    }
+
+    private static void project(Object result, Set<String> fields) {
+        Map<String, Object> properties = result instanceof Entity ? ((Entity) result).getProperties()
+                : ((Relationship) result).getProperties();
+
+        properties.keySet().retainAll(fields);
+    }
+}
@@ -19,9 +19,11 @@ package org.hawkular.inventory.rest;
 
 import com.wordnik.swagger.annotations.Api;
 import com.wordnik.swagger.annotations.ApiOperation;
+import com.wordnik.swagger.annotations.ApiParam;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
 import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.ResourceTypes;
 import org.hawkular.inventory.api.model.MetricType;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
@@ -38,11 +40,16 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Providers;
+import java.util.List;
 import java.util.Set;
 
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 /**
@@ -50,14 +57,20 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
  * @since 1.0
  */
 @Path("/")
-@Produces(APPLICATION_JSON)
-@Consumes(APPLICATION_JSON)
+@Produces({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Consumes({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
 @Api(value = "/", description = "Resource type CRUD")
 public class RestResourceTypes {
 
     @Inject @ForRest
     private Inventory inventory;
 
+    @Context
+    private Providers providers;
+
+    @Context
+    private HttpHeaders headers;
+
     @GET
     @Path("/{tenantId}/resourceTypes")
     @ApiOperation("Retrieves all resource types")
@@ -67,8 +80,14 @@ public class RestResourceTypes {
                     response = ApiError.class),
             @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
     })
-    public Response getAll(@PathParam("tenantId") String tenantId) {
-        return Response.ok(inventory.tenants().get(tenantId).resourceTypes().getAll().entities()).build();
+    public Response getAll(@PathParam("tenantId") String tenantId,
+                           @ApiParam("Only the entities with these ids are returned")
+                           @QueryParam("id") List<String> ids) {
+        ResourceTypes.ReadWrite types = inventory.tenants().get(tenantId).resourceTypes();
+        ResourceTypes.Multiple found = ids.isEmpty() ? types.getAll()
+                : types.get(ids.toArray(new String[ids.size()]));
+
+        return ResponseUtil.streamed(providers, headers, found.entityIterator()).build();
     }
 
     @GET
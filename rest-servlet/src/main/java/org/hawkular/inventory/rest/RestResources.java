@@ -22,20 +22,24 @@ import com.wordnik.swagger.annotations.ApiOperation;
 import com.wordnik.swagger.annotations.ApiParam;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
+import org.hawkular.inventory.api.Environments;
 import org.hawkular.inventory.api.Inventory;
 import org.hawkular.inventory.api.Metrics;
 import org.hawkular.inventory.api.Resources;
 import org.hawkular.inventory.api.Tenants;
 import org.hawkular.inventory.api.filters.Defined;
+import org.hawkular.inventory.api.filters.Related;
 import org.hawkular.inventory.api.model.Metric;
 import org.hawkular.inventory.api.model.Resource;
 import org.hawkular.inventory.api.model.ResourceType;
+import org.hawkular.inventory.api.model.Subgraph;
 import org.hawkular.inventory.rest.json.ApiError;
 import org.hawkular.inventory.rest.json.ResourceJSON;
 
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -43,11 +47,19 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Providers;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.Spliterators;
+import java.util.stream.StreamSupport;
 
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 /**
@@ -55,14 +67,20 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
  * @since 1.0
  */
 @Path("/")
-@Produces(value = APPLICATION_JSON)
-@Consumes(value = APPLICATION_JSON)
+@Produces({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Consumes({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
 @Api(value = "/", description = "Resources CRUD")
 public class RestResources {
 
     @Inject @ForRest
     private Inventory inventory;
 
+    @Context
+    private Providers providers;
+
+    @Context
+    private HttpHeaders headers;
+
     @POST
     @Path("/{tenantId}/{environmentId}/resources")
     @ApiOperation("Creates a new resource")
@@ -94,7 +112,8 @@ public class RestResources {
     // representation of our Java API?
     @GET
     @Path("/{tenantId}/{environmentId}/resources")
-    @ApiOperation("Retrieves resources in the environment, optionally filtering by resource type")
+    @ApiOperation("Retrieves resources in the environment, optionally filtering by resource type or searching by" +
+            " the text in their ids")
     @ApiResponses({
             @ApiResponse(code = 200, message = "OK"),
             @ApiResponse(code = 404, message = "Tenant or environment doesn't exist", response = ApiError.class),
@@ -103,17 +122,33 @@ public class RestResources {
     public Response getResourcesByType(@PathParam("tenantId") String tenantId,
                                        @PathParam("environmentId") String environmentId,
                                        @QueryParam("type") String typeId,
-                                       @QueryParam("typeVersion") String typeVersion) {
+                                       @QueryParam("typeVersion") String typeVersion,
+                                       @ApiParam("Only the resources whose id starts with this text are returned")
+                                       @QueryParam("search") String text,
+                                       @ApiParam("Only the resources with these ids are returned")
+                                       @QueryParam("id") List<String> ids) {
         Resources.ReadWrite rr = inventory.tenants().get(tenantId).environments().get(environmentId).resources();
 
-        Set<Resource> rs;
-        if (typeId != null && typeVersion != null) {
+        Iterator<Resource> rs;
+        if (text != null || !ids.isEmpty()) {
+            rs = text != null ? rr.search(text).entityIterator()
+                    : rr.get(ids.toArray(new String[ids.size()])).entityIterator();
+
+            if (typeId != null && typeVersion != null) {
+                rs = StreamSupport.stream(Spliterators.spliteratorUnknownSize(rs, 0), false)
+                        .filter(r -> typeId.equals(r.getType().getId())).iterator();
+            }
+            if (text != null && !ids.isEmpty()) {
+                rs = StreamSupport.stream(Spliterators.spliteratorUnknownSize(rs, 0), false)
+                        .filter(r -> ids.contains(r.getId())).iterator();
+            }
+        } else if (typeId != null && typeVersion != null) {
             ResourceType rt = new ResourceType(tenantId, typeId, typeVersion);
-            rs = rr.getAll(Defined.by(rt)).entities();
+            rs = rr.getAll(Defined.by(rt)).entityIterator();
         } else {
-            rs = rr.getAll().entities();
+            rs = rr.getAll().entityIterator();
         }
-        return Response.ok(rs).build();
+        return ResponseUtil.streamed(providers, headers, rs).build();
     }
 
     @GET
@@ -132,6 +167,66 @@ public class RestResources {
     }
 
 
+    @GET
+    @Path("/{tenantId}/{environmentId}/resources/{resourceId}/subgraph")
+    @ApiOperation("Retrieves a resource together with the entities and relationships in its neighborhood")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "The resource with its neighborhood"),
+            @ApiResponse(code = 400, message = "Negative depth", response = ApiError.class),
+            @ApiResponse(code = 404, message = "Tenant, environment or resource doesn't exist",
+                    response = ApiError.class),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response getResourceSubgraph(@PathParam("tenantId") String tenantId,
+                                        @PathParam("environmentId") String environmentId,
+                                        @PathParam("resourceId") String resourceId,
+                                        @ApiParam("The maximum number of relationships to follow from the resource")
+                                        @QueryParam("depth") @DefaultValue("1") int depth,
+                                        @ApiParam("The names of the relationships to follow, all if not specified")
+                                        @QueryParam("relationship") List<String> relationshipNames) {
+        Subgraph<Resource> sg = inventory.tenants().get(tenantId).environments().get(environmentId).resources()
+                .get(resourceId).subgraph(depth, relationshipNames.toArray(new String[relationshipNames.size()]));
+
+        return Response.ok(sg).build();
+    }
+
+    @GET
+    @Path("/{tenantId}/{environmentId}/resources/{resourceId}/reachable")
+    @ApiOperation("Retrieves the resources in the environment that are (transitively) reachable from the resource " +
+            "using the relationship with the given name")
+    @ApiResponses({
+            @ApiResponse(code = 200, message = "The list of reachable resources"),
+            @ApiResponse(code = 400, message = "Relationship not specified or unlimited depth without dedup",
+                    response = ApiError.class),
+            @ApiResponse(code = 404, message = "Tenant, environment or resource doesn't exist",
+                    response = ApiError.class),
+            @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
+    })
+    public Response getReachableResources(@PathParam("tenantId") String tenantId,
+                                          @PathParam("environmentId") String environmentId,
+                                          @PathParam("resourceId") String resourceId,
+                                          @QueryParam("relationship") String relationshipName,
+                                          @ApiParam("The maximum number of relationships to follow, limited to " +
+                                                  "the same maximum as in the queries. 0 for that maximum.")
+                                          @QueryParam("maxDepth") @DefaultValue("0") int maxDepth,
+                                          @ApiParam("Whether to visit each resource at most once")
+                                          @QueryParam("dedup") @DefaultValue("true") boolean dedup) {
+        if (relationshipName == null) {
+            throw new IllegalArgumentException("relationship not specified");
+        }
+
+        Resources.ReadWrite rr = inventory.tenants().get(tenantId).environments().get(environmentId).resources();
+        Resource source = rr.get(resourceId).entity();
+
+        //the inventory follows the relationships from the source once and only then picks the resources of the
+        //environment among the reached entities
+        Iterator<Resource> rs = rr.getAll(Related.asTargetWith(source, relationshipName)
+                .transitive(RestQuery.maxDepth(maxDepth), dedup)).entityIterator();
+
+        return ResponseUtil.streamed(providers, headers, rs).build();
+    }
+
+
     @DELETE
     @Path("/{tenantId}/{environmentId}/resources/{resourceId}")
     @ApiOperation("Retrieves a single resource")
@@ -154,18 +249,30 @@ public class RestResources {
     @ApiOperation("Associates a pre-existing metric with a resource")
     @ApiResponses({
             @ApiResponse(code = 204, message = "OK"),
-            @ApiResponse(code = 404, message = "Tenant, environment, resource or metric doesn't exist",
-                    response = ApiError.class),
+            @ApiResponse(code = 404, message = "Tenant, environment, resource or some of the metrics don't exist. " +
+                    "None of the metrics is associated with the resource then.", response = ApiError.class),
             @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
     })
     public Response addMetricToResource(@PathParam("tenantId") String tenantId,
                                         @PathParam("environmentId") String environmentId,
                                         @PathParam("resourceId") String resourceId,
                                         Collection<String> metricIds) {
-        Metrics.ReadRelate metricDao = inventory.tenants().get(tenantId).environments().get(environmentId)
-                .resources().get(resourceId).metrics();
+        Environments.Single env = inventory.tenants().get(tenantId).environments().get(environmentId);
+        Metrics.ReadRelate metricDao = env.resources().get(resourceId).metrics();
 
-        metricIds.forEach(metricDao::add);
+        //check all the metrics up front so that the request either associates all of them or none
+        Set<String> notFound = new HashSet<>(metricIds);
+        env.metrics().get(metricIds.toArray(new String[metricIds.size()])).entities()
+                .forEach(m -> notFound.remove(m.getId()));
+
+        if (notFound.isEmpty()) {
+            notFound = metricDao.add(metricIds);
+        }
+
+        if (!notFound.isEmpty()) {
+            return Response.status(Response.Status.NOT_FOUND).entity(new ApiError("Some of the metrics were not " +
+                    "found and therefore could not be associated with the resource.", notFound)).build();
+        }
 
         return Response.noContent().build();
     }
@@ -181,11 +288,16 @@ public class RestResources {
     })
     public Response listMetricsOfResource(@PathParam("tenantId") String tenantId,
                                           @PathParam("environmentId") String environmentID,
-                                          @PathParam("resourceId") String resourceId) {
-        Set<Metric> ms = inventory.tenants().get(tenantId).environments().get(environmentID)
-                .resources().get(resourceId).metrics().getAll().entities();
+                                          @PathParam("resourceId") String resourceId,
+                                          @ApiParam("Only the metrics with these ids are returned")
+                                          @QueryParam("id") List<String> ids) {
+        Metrics.ReadRelate metrics = inventory.tenants().get(tenantId).environments().get(environmentID)
+                .resources().get(resourceId).metrics();
+
+        Iterator<Metric> ms = (ids.isEmpty() ? metrics.getAll() : metrics.get(ids.toArray(new String[ids.size()])))
+                .entityIterator();
 
-        return Response.ok(ms).build();
+        return ResponseUtil.streamed(providers, headers, ms).build();
     }
 
     @GET
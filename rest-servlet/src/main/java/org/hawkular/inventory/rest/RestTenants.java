@@ -23,6 +23,7 @@ import com.wordnik.swagger.annotations.ApiParam;
 import com.wordnik.swagger.annotations.ApiResponse;
 import com.wordnik.swagger.annotations.ApiResponses;
 import org.hawkular.inventory.api.Inventory;
+import org.hawkular.inventory.api.Tenants;
 import org.hawkular.inventory.api.model.Tenant;
 import org.hawkular.inventory.rest.json.ApiError;
 import org.hawkular.inventory.rest.json.IdJSON;
@@ -36,11 +37,16 @@ import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
+import javax.ws.rs.ext.Providers;
+import java.util.List;
 import java.util.Map;
 
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
 /**
@@ -48,14 +54,20 @@ import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
  * @since 1.0
  */
 @Path("/tenants")
-@Produces(APPLICATION_JSON)
-@Consumes(APPLICATION_JSON)
+@Produces({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+@Consumes({APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
 @Api(value = "/tenants", description = "CRUD for tenants")
 public class RestTenants {
 
     @Inject @ForRest
     private Inventory inventory;
 
+    @Context
+    private Providers providers;
+
+    @Context
+    private HttpHeaders headers;
+
     @GET
     @Path("/")
     @ApiOperation("Lists all tenants")
@@ -64,8 +76,12 @@ public class RestTenants {
             @ApiResponse(code = 404, message = "Tenant doesn't exist", response = ApiError.class),
             @ApiResponse(code = 500, message = "Server error", response = ApiError.class)
     })
-    public Response getAll() {
-        return Response.ok(inventory.tenants().getAll().entities()).build();
+    public Response getAll(@ApiParam("Only the entities with these ids are returned")
+                           @QueryParam("id") List<String> ids) {
+        Tenants.Multiple found = ids.isEmpty() ? inventory.tenants().getAll()
+                : inventory.tenants().get(ids.toArray(new String[ids.size()]));
+
+        return ResponseUtil.streamed(providers, headers, found.entityIterator()).build();
     }
 
     @POST
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import com.fasterxml.jackson.jaxrs.smile.JacksonJaxbSmileProvider;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.ext.Provider;
+
+import static com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes.APPLICATION_JACKSON_SMILE;
+
+/**
+ * Reads and writes the entities in Smile, the binary JSON-compatible format of Jackson, which is cheaper to produce,
+ * parse and send than JSON text. The clients ask for it using the {@code application/x-jackson-smile} media type.
+ *
+ * <p>The provider understands the same annotations as the JSON provider so that the structure of the data is the same
+ * in both formats.
+ *
+ * @author agent
+ * @since 1.0
+ */
+@Provider
+@Consumes(APPLICATION_JACKSON_SMILE)
+@Produces(APPLICATION_JACKSON_SMILE)
+public class SmileProvider extends JacksonJaxbSmileProvider {
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import org.hawkular.inventory.rest.json.ApiError;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.util.Iterator;
+
+/**
+ * Writes the elements as a JSON array one by one as they are pulled from an iterator, so that the whole collection
+ * never needs to be held in memory.
+ *
+ * <p>The elements themselves are serialized by the JSON message body writer of the application so that they look
+ * exactly the same as when the collection is returned as a whole. As the length of the response is not known
+ * upfront, it is sent using the chunked transfer encoding.
+ *
+ * <p>The status of the response has been sent by the time the elements are being written, so a failure can't be
+ * reported the usual way. Instead, an {@link ApiError} is written as the last element and the array is left
+ * unterminated, so that the clients can't mistake the partial list for a complete one.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class StreamingJsonArray implements StreamingOutput {
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private final Providers providers;
+    private final Iterator<?> elements;
+
+    StreamingJsonArray(Providers providers, Iterator<?> elements) {
+        this.providers = providers;
+        this.elements = elements;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        //the writers of the elements close the stream they write to once they're done
+        OutputStream out = new FilterOutputStream(output) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+
+        //the headers can't be changed anymore once the body is being written
+        MultivaluedMap<String, Object> ignoredHeaders = new MultivaluedHashMap<>();
+
+        out.write('[');
+
+        int count = 0;
+        boolean separate = false;
+        try {
+            while (elements.hasNext()) {
+                Object element = elements.next();
+
+                if (separate) {
+                    out.write(',');
+                    separate = false;
+                }
+
+                writeElement(element, out, ignoredHeaders);
+                separate = true;
+                count++;
+            }
+        } catch (RuntimeException e) {
+            RestApiLogger.LOGGER.streamingFailed(count, e);
+
+            //the failure might have left the output in the middle of an element, so this is the best effort
+            try {
+                if (separate) {
+                    out.write(',');
+                }
+                writeElement(new ApiError("Failed to produce the rest of the list: " + e.getMessage()), out,
+                        ignoredHeaders);
+                out.flush();
+            } catch (IOException | RuntimeException markerFailure) {
+                e.addSuppressed(markerFailure);
+            }
+
+            throw e;
+        }
+
+        out.write(']');
+        out.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeElement(Object element, OutputStream out, MultivaluedMap<String, Object> ignoredHeaders)
+            throws IOException {
+        Class<Object> type = (Class<Object>) element.getClass();
+
+        MessageBodyWriter<Object> writer = providers.getMessageBodyWriter(type, type, NO_ANNOTATIONS,
+                MediaType.APPLICATION_JSON_TYPE);
+        if (writer == null) {
+            throw new IllegalStateException("Could not find a JSON writer for " + type);
+        }
+
+        writer.writeTo(element, type, type, NO_ANNOTATIONS, MediaType.APPLICATION_JSON_TYPE, ignoredHeaders, out);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.jaxrs.smile.JacksonJaxbSmileProvider;
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
+import org.hawkular.inventory.rest.json.ApiError;
+
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.util.Iterator;
+
+/**
+ * The Smile counterpart of the {@link StreamingJsonArray}. Smile data can't be simply concatenated like JSON text, so
+ * the elements are written one by one into a single Smile array using the object mapper of the Smile provider of the
+ * application. The data therefore look exactly the same as when the collection is returned as a whole.
+ *
+ * <p>Like in JSON, a failure while the elements are being written is reported by an {@link ApiError} written as the
+ * last element of the array, which is then left unterminated.
+ *
+ * @author agent
+ * @since 1.0
+ */
+final class StreamingSmileArray implements StreamingOutput {
+    private static final Annotation[] NO_ANNOTATIONS = new Annotation[0];
+
+    private final Providers providers;
+    private final Iterator<?> elements;
+
+    StreamingSmileArray(Providers providers, Iterator<?> elements) {
+        this.providers = providers;
+        this.elements = elements;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        MessageBodyWriter<Object> writer = providers.getMessageBodyWriter(Object.class, Object.class, NO_ANNOTATIONS,
+                SmileMediaTypes.APPLICATION_JACKSON_SMILE_TYPE);
+        if (!(writer instanceof JacksonJaxbSmileProvider)) {
+            throw new IllegalStateException("Could not find the Smile provider.");
+        }
+
+        ObjectMapper mapper = ((JacksonJaxbSmileProvider) writer).locateMapper(Object.class,
+                SmileMediaTypes.APPLICATION_JACKSON_SMILE_TYPE);
+
+        //the output stream is closed by the JAX-RS runtime and the array must not be terminated when closing the
+        //generator after a failure
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+
+            generator.writeStartArray();
+
+            int count = 0;
+            try {
+                while (elements.hasNext()) {
+                    mapper.writeValue(generator, elements.next());
+                    count++;
+                }
+            } catch (RuntimeException e) {
+                RestApiLogger.LOGGER.streamingFailed(count, e);
+
+                //the failure might have left the generator in the middle of an element, so this is the best effort
+                try {
+                    mapper.writeValue(generator, new ApiError("Failed to produce the rest of the list: " +
+                            e.getMessage()));
+                    generator.flush();
+                } catch (IOException | RuntimeException markerFailure) {
+                    e.addSuppressed(markerFailure);
+                }
+
+                throw e;
+            }
+
+            generator.writeEndArray();
+        }
+    }
+}
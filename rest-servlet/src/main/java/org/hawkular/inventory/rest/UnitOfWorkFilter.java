@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest;
+
+import org.hawkular.inventory.api.Inventory;
+
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+/**
+ * Runs every request in its own unit of work. The GET and HEAD requests and the requests handled by the methods
+ * annotated with {@link ReadOnly} are read-only.
+ *
+ * <p>The unit of work ends after the response entity is written so that the entity can still lazily read the
+ * inventory while being serialized.
+ *
+ * @author agent
+ * @since 1.0
+ */
+@Provider
+public class UnitOfWorkFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    @Inject @ForRest
+    private Inventory inventory;
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        inventory.beginUnitOfWork(isReadOnly(requestContext, resourceInfo));
+    }
+
+    static boolean isReadOnly(ContainerRequestContext requestContext, ResourceInfo resourceInfo) {
+        String method = requestContext.getMethod();
+        if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method)) {
+            return true;
+        }
+
+        Method resourceMethod = resourceInfo.getResourceMethod();
+        return resourceMethod != null && resourceMethod.isAnnotationPresent(ReadOnly.class);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        if (!responseContext.hasEntity()) {
+            end();
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        try {
+            context.proceed();
+        } finally {
+            end();
+        }
+    }
+
+    private void end() {
+        inventory.endUnitOfWork();
+    }
+}
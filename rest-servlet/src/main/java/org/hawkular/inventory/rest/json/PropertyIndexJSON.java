@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest.json;
+
+/**
+ * The JSON representation of the property index declaration. The entity type is one of {@code tenant},
+ * {@code environment}, {@code feed}, {@code resourceType}, {@code metricType}, {@code resource} or {@code metric},
+ * the value type is one of {@code string}, {@code integer}, {@code long}, {@code double} or {@code boolean} and can be
+ * omitted.
+ *
+ * @author agent
+ * @since 1.0
+ */
+public class PropertyIndexJSON {
+
+    private String entityType;
+    private String property;
+    private String valueType;
+
+    public PropertyIndexJSON() {
+    }
+
+    public PropertyIndexJSON(String entityType, String property, String valueType) {
+        this.entityType = entityType;
+        this.property = property;
+        this.valueType = valueType;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(String entityType) {
+        this.entityType = entityType;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public void setProperty(String property) {
+        this.property = property;
+    }
+
+    public String getValueType() {
+        return valueType;
+    }
+
+    public void setValueType(String valueType) {
+        this.valueType = valueType;
+    }
+}
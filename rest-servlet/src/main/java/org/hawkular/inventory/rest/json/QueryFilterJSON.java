@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest.json;
+
+import java.util.List;
+
+/**
+ * A filter in a {@link QueryStepJSON step} of a query. Exactly one kind of the filter must be specified:
+ * <ul>
+ *     <li>{@code ids} - the entities or relationships with one of the ids,
+ *     <li>{@code types} - the entities of one of the types,
+ *     <li>{@code property} - the entities or relationships whose property is compared with the {@code values} using
+ *     the {@code operator} (one of the {@code PropertyOperator}s, {@code EQUAL} by default) or which merely have the
+ *     property if there are no values,
+ *     <li>{@code related} - the entities that are sources (or targets if the {@code role} is {@code target}) of a
+ *     relationship with this name, followed transitively up to {@code maxDepth} relationships if that is specified,
+ *     <li>{@code names} - the relationships with one of the names,
+ *     <li>{@code sourceTypes} - the relationships whose source is of one of the types,
+ *     <li>{@code targetTypes} - the relationships whose target is of one of the types.
+ * </ul>
+ *
+ * @author agent
+ * @since 1.0
+ */
+public class QueryFilterJSON {
+
+    private List<String> ids;
+    private List<String> types;
+    private String property;
+    private String operator;
+    private List<Object> values;
+    private String related;
+    private String role;
+    private Integer maxDepth;
+    private Boolean dedup;
+    private List<String> names;
+    private List<String> sourceTypes;
+    private List<String> targetTypes;
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public List<String> getTypes() {
+        return types;
+    }
+
+    public void setTypes(List<String> types) {
+        this.types = types;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public void setProperty(String property) {
+        this.property = property;
+    }
+
+    public String getOperator() {
+        return operator;
+    }
+
+    public void setOperator(String operator) {
+        this.operator = operator;
+    }
+
+    public List<Object> getValues() {
+        return values;
+    }
+
+    public void setValues(List<Object> values) {
+        this.values = values;
+    }
+
+    public String getRelated() {
+        return related;
+    }
+
+    public void setRelated(String related) {
+        this.related = related;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public Integer getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(Integer maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    public Boolean getDedup() {
+        return dedup;
+    }
+
+    public void setDedup(Boolean dedup) {
+        this.dedup = dedup;
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public void setNames(List<String> names) {
+        this.names = names;
+    }
+
+    public List<String> getSourceTypes() {
+        return sourceTypes;
+    }
+
+    public void setSourceTypes(List<String> sourceTypes) {
+        this.sourceTypes = sourceTypes;
+    }
+
+    public List<String> getTargetTypes() {
+        return targetTypes;
+    }
+
+    public void setTargetTypes(List<String> targetTypes) {
+        this.targetTypes = targetTypes;
+    }
+}
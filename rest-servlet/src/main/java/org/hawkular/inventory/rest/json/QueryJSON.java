@@ -0,0 +1,41 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest.json;
+
+import java.util.List;
+
+/**
+ * The JSON representation of a query. The query is a path through the inventory, e.g. the tenants, their
+ * environments and the resources in them, with each step of the path narrowed down by filters. The last step can
+ * also be the relationships of the entities found by the previous steps.
+ *
+ * @author agent
+ * @since 1.0
+ */
+public class QueryJSON {
+
+    private List<QueryStepJSON> path;
+
+    public List<QueryStepJSON> getPath() {
+        return path;
+    }
+
+    public void setPath(List<QueryStepJSON> path) {
+        this.path = path;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.hawkular.inventory.rest.json;
+
+import java.util.List;
+
+/**
+ * One step of a {@link QueryJSON query}. The type is one of {@code tenant}, {@code environment}, {@code feed},
+ * {@code resourceType}, {@code metricType}, {@code resource}, {@code metric} or {@code relationship}. The direction is
+ * only used with the relationships and is one of {@code outgoing} (the default), {@code incoming} or {@code both}.
+ *
+ * @author agent
+ * @since 1.0
+ */
+public class QueryStepJSON {
+
+    private String type;
+    private String direction;
+    private List<QueryFilterJSON> filters;
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+
+    public List<QueryFilterJSON> getFilters() {
+        return filters;
+    }
+
+    public void setFilters(List<QueryFilterJSON> filters) {
+        this.filters = filters;
+    }
+}
@@ -16,11 +16,19 @@
  */
 package org.hawkular.inventory.rest.test
 
+import groovy.json.JsonSlurper
+import groovyx.net.http.HttpResponseException
 import org.junit.AfterClass
 import org.junit.BeforeClass
 import org.junit.Test
 
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.zip.GZIPInputStream
+
 import static org.junit.Assert.assertEquals
+import static org.junit.Assert.fail
 
 /**
  * Test some basic inventory functionality via REST
@@ -203,6 +211,250 @@ class RestTest extends AbstractTestBase {
         assertEntitiesExist("com.example.tenant/test/resources/playroom2/metrics", ["playroom2_size"])
     }
 
+    @Test
+    void testQuery() {
+        def response = client.post(path: "query", body: """{"path":[
+                {"type":"tenant", "filters":[{"ids":["com.example.tenant"]}]},
+                {"type":"environment"},
+                {"type":"resource", "filters":[{"ids":["playroom1", "kachna"]}]}]}""")
+        assertEquals(200, response.status)
+        assertEquals(["playroom1"], response.data.collect { it.id })
+
+        response = client.post(path: "query", body: """{"path":[
+                {"type":"tenant", "filters":[{"ids":["com.example.tenant"]}]},
+                {"type":"environment"},
+                {"type":"resource", "filters":[{"ids":["playroom1"]}]},
+                {"type":"relationship", "filters":[{"names":["owns"]}, {"targetTypes":["metric"]}]}]}""")
+        assertEquals(200, response.status)
+        assertEquals(["playroom1_size"], response.data.collect { it.target.id })
+
+        response = client.post(path: "query", query: [page: 1, per_page: 1], body: """{"path":[
+                {"type":"tenant", "filters":[{"ids":["com.example.tenant"]}]},
+                {"type":"environment"},
+                {"type":"metric"}]}""")
+        assertEquals(200, response.status)
+        assertEquals(1, response.data.size())
+    }
+
+    @Test
+    void testQueryDepthLimited() {
+        //the unlimited depth without the deduplication would be refused, but the depth is limited by the server
+        def response = client.post(path: "query", body: """{"path":[
+                {"type":"tenant", "filters":[{"ids":["com.example.tenant"]}]},
+                {"type":"environment"},
+                {"type":"resource", "filters":[{"related":"contains", "role":"target", "maxDepth":0,
+                    "dedup":false}]}]}""")
+        assertEquals(200, response.status)
+        assertEquals(["playroom1", "playroom2"] as Set, response.data.collect { it.id } as Set)
+    }
+
+    @Test
+    void testInvalidQueries() {
+        assertBadQuery('{"path":[]}')
+        assertBadQuery('{"path":[{"type":"resource"}]}')
+        assertBadQuery('{"path":[{"type":"tenant"}, {"type":"metric"}]}')
+        assertBadQuery('{"path":[{"type":"tenant"}, {"type":"relationship"}, {"type":"environment"}]}')
+        assertBadQuery('{"path":[{"type":"tenant", "filters":[{"types":["kachna"]}]}]}')
+        assertBadQuery('{"path":[{"type":"tenant", "filters":[{}]}]}')
+    }
+
+    @Test
+    void testMultiGet() {
+        assertListed("tenants?id=com.acme.tenant&id=com.example.nonexistent", ["com.acme.tenant"])
+        assertListed("com.example.tenant/test/resources?id=playroom1&id=playroom2", ["playroom1", "playroom2"])
+        assertListed("com.example.tenant/test/metrics?id=playroom2_size&id=host1_ping_response", ["playroom2_size"])
+    }
+
+    @Test
+    void testReachableResources() {
+        assertListed("com.example.tenant/test/resources/playroom1/reachable?relationship=contains&maxDepth=2", [])
+
+        assertEquals(400, rawGet("com.example.tenant/test/resources/playroom1/reachable", [:]).status)
+
+        //the unlimited depth is limited to the maximum depth of the queries, so dedup is not needed
+        assertEquals(200, rawGet("com.example.tenant/test/resources/playroom1/reachable?relationship=contains" +
+                "&dedup=false", [:]).status)
+    }
+
+    @Test
+    void testResourceSubgraph() {
+        def response = client.get(path: "com.acme.tenant/production/resources/host1/subgraph")
+        assertEquals(200, response.status)
+        assertEquals("host1", response.data.root.id)
+
+        def ids = response.data.entities.collect { it.id } as Set
+        assert ids.containsAll(["host1", "host1_ping_response", "URL", "production"]) : "Unexpected entities: " + ids
+        assert response.data.relationships.any { it.name == "owns" && it.target.id == "host1_ping_response" }
+
+        response = client.get(path: "com.acme.tenant/production/resources/host1/subgraph",
+                query: [depth: 0])
+        assertEquals(["host1"], response.data.entities.collect { it.id })
+        assert response.data.relationships.empty
+
+        assertEquals(400, rawGet("com.acme.tenant/production/resources/host1/subgraph?depth=-1", [:]).status)
+    }
+
+    @Test
+    void testPropertyIndexes() {
+        def response = client.post(path: "admin/indexes",
+                body: '{"entityType":"resource", "property":"hostname", "valueType":"string"}')
+        assertEquals(204, response.status)
+
+        response = client.get(path: "admin/indexes")
+        assertEquals(200, response.status)
+        assert response.data.any { it.entityType == "resource" && it.property == "hostname" }
+
+        //the property can only have a single value type
+        try {
+            client.post(path: "admin/indexes",
+                    body: '{"entityType":"metric", "property":"hostname", "valueType":"long"}')
+            fail("Conflicting index should have been refused.")
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.response.status)
+        }
+
+        try {
+            client.post(path: "admin/indexes", body: '{"entityType":"kachna", "property":"hostname"}')
+            fail("Index on unknown entity type should have been refused.")
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.response.status)
+        }
+    }
+
+    @Test
+    void testListsStreamed() {
+        def response = rawGet("com.example.tenant/test/resources", [:])
+        assertEquals(200, response.status)
+        assertEquals("chunked", response.headers["Transfer-Encoding"])
+        assertEquals(["playroom1", "playroom2"] as Set, new JsonSlurper().parse(response.body).collect { it.id } as Set)
+    }
+
+    @Test
+    void testSmile() {
+        def response = rawGet("com.example.tenant/test/resources", ["Accept": "application/x-jackson-smile"])
+        assertEquals(200, response.status)
+        assert response.headers["Content-Type"].startsWith("application/x-jackson-smile")
+
+        //the Smile header
+        assert response.body.length > 3
+        assertEquals([(byte) 0x3A, (byte) 0x29, (byte) 0x0A], response.body[0..2])
+    }
+
+    @Test
+    void testCompression() {
+        //the list has to be larger than the compression threshold, 1024 bytes by default
+        def ids = (1..20).collect { "compressed_resource_$it".toString() }
+        try {
+            ids.each {
+                def response = client.post(path: "com.example.tenant/test/resources",
+                        body: "{\"id\": \"$it\", \"type\": {\"id\": \"Playroom\", \"version\": \"1.0\"}}")
+                assertEquals(201, response.status)
+            }
+
+            def response = rawGet("com.example.tenant/test/resources", ["Accept-Encoding": "gzip"])
+            assertEquals(200, response.status)
+            assertEquals("gzip", response.headers["Content-Encoding"])
+
+            def resources = new JsonSlurper().parse(new GZIPInputStream(new ByteArrayInputStream(response.body)))
+            assert resources.collect { it.id }.containsAll(ids)
+
+            response = rawGet("com.example.tenant/test/resources", [:])
+            assertEquals(200, response.status)
+            assert response.headers["Content-Encoding"] == null
+        } finally {
+            ids.each { rawRequest("DELETE", "com.example.tenant/test/resources/$it", [:], null) }
+        }
+
+        //the small responses are not worth compressing
+        def small = rawGet("tenants", ["Accept-Encoding": "gzip"])
+        assertEquals(200, small.status)
+        assert small.headers["Content-Encoding"] == null
+    }
+
+    @Test
+    void testRequestMetrics() {
+        client.get(path: "tenants")
+
+        def response = client.get(path: "metrics")
+        assertEquals(200, response.status)
+
+        def tenants = response.data.endpoints["GET /tenants"]
+        assert tenants != null : "No metrics of listing the tenants in " + response.data.endpoints.keySet()
+        assert tenants.requests >= 1
+        assert tenants.maxLatency >= tenants.medianLatency
+
+        assert response.data.admission.readLimit != null
+        assert response.data.admission.admittedRequests >= 1
+    }
+
+    @Test
+    void testAdmissionControl() {
+        //more concurrent requests than the default limit and the queue can take
+        def pool = Executors.newFixedThreadPool(64)
+        try {
+            def query = '{"path":[{"type":"tenant"}, {"type":"environment"}, {"type":"resource"}]}'.getBytes("UTF-8")
+            def futures = (1..256).collect {
+                pool.submit({ rawRequest("POST", "query", ["Content-Type": "application/json"], query) } as Callable)
+            }
+
+            def statuses = futures.collect {
+                def response = it.get(1, TimeUnit.MINUTES)
+                if (response.status == 429 || response.status == 503) {
+                    assert response.headers["Retry-After"] != null : "Rejection without Retry-After"
+                }
+                response.status
+            }
+
+            assert statuses.every { it == 200 || it == 429 || it == 503 } : "Unexpected statuses: " + statuses.unique()
+            assert statuses.contains(200)
+
+            def admission = client.get(path: "metrics").data.admission
+            def rejected = statuses.count { it != 200 }
+            assert admission.rejectedTooManyRequests + admission.rejectedUnavailable >= rejected
+        } finally {
+            pool.shutdownNow()
+        }
+    }
+
+    private static Map rawGet(path, headers) {
+        return rawRequest("GET", path, headers, null)
+    }
+
+    private static Map rawRequest(String method, path, Map headers, byte[] body) {
+        HttpURLConnection conn = (HttpURLConnection) new URL(baseURI + path).openConnection()
+        conn.requestMethod = method
+        headers.each { k, v -> conn.setRequestProperty(k, v) }
+
+        if (body != null) {
+            conn.doOutput = true
+            conn.outputStream.withStream { it.write(body) }
+        }
+
+        def status = conn.responseCode
+        def stream = status < 400 ? conn.inputStream : conn.errorStream
+        def bytes = stream == null ? new byte[0] : stream.withStream { it.bytes }
+
+        def responseHeaders = [:]
+        conn.headerFields.each { k, v -> if (k != null) responseHeaders[k] = v[0] }
+
+        return [status: status, headers: responseHeaders, body: bytes]
+    }
+
+    private static void assertListed(path, ids) {
+        def response = rawGet(path, [:])
+        assertEquals(200, response.status)
+        assertEquals(ids as Set, new JsonSlurper().parse(response.body).collect { it.id } as Set)
+    }
+
+    private static void assertBadQuery(query) {
+        try {
+            client.post(path: "query", body: query)
+            fail("The query should have been refused: " + query)
+        } catch (HttpResponseException e) {
+            assertEquals(400, e.response.status)
+        }
+    }
+
     private static void assertEntityExists(path, id) {
         def response = client.get(path: path)
         assert id.equals(response.data.id)